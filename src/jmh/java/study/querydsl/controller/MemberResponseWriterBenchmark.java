@@ -0,0 +1,80 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * 한 페이지를 직렬화하는 CPU 시간 비교. 페이지당 바이트 수는 setUp 에서 한 번 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemberResponseWriterBenchmark {
+
+  @Param({"20", "100"})
+  private int pageSize;
+
+  private ObjectMapper objectMapper;
+  private MemberResponseWriter writer;
+  private Page<MemberTeamDto> page;
+  private ByteArrayOutputStream out;
+
+  @Setup
+  public void setUp() throws IOException {
+    objectMapper = new ObjectMapper();
+    writer = new MemberResponseWriter(objectMapper);
+    List<MemberTeamDto> content = new ArrayList<>();
+    for (int i = 0; i < pageSize; i++) {
+      long teamId = i % 2 == 0 ? 1L : 2L;
+      content.add(new MemberTeamDto((long) i, "member" + i, i, teamId, teamId == 1L ? "teamA" : "teamB"));
+    }
+    page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+    out = new ByteArrayOutputStream(64 * 1024);
+
+    System.out.printf("%nbytes per page (size=%d): pageImplJson=%d, columnarJson=%d, columnarSmile=%d%n",
+        pageSize, pageImplJson().size(), columnarJson().size(), columnarSmile().size());
+  }
+
+  @Benchmark
+  public ByteArrayOutputStream pageImplJson() throws IOException {
+    out.reset();
+    objectMapper.writeValue(out, page);
+    return out;
+  }
+
+  @Benchmark
+  public ByteArrayOutputStream columnarJson() throws IOException {
+    out.reset();
+    writer.write(MemberResponseWriter.COLUMNAR_JSON, out, page.getContent(), page);
+    return out;
+  }
+
+  @Benchmark
+  public ByteArrayOutputStream columnarSmile() throws IOException {
+    out.reset();
+    writer.write(MemberResponseWriter.COLUMNAR_SMILE, out, page.getContent(), page);
+    return out;
+  }
+}
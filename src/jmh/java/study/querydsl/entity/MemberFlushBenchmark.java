@@ -0,0 +1,112 @@
+package study.querydsl.entity;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+
+/**
+ * 회원을 많이 읽어 둔 영속성 컨텍스트의 flush 비용. 바이트코드 향상 전/후를 비교한다.
+ * <p>
+ * 매 호출 전에 회원 전체를 읽고(dirty 는 1% 만 나이를 바꾼다), flush 만 잰다. 트랜잭션은 롤백한다.
+ * 향상 전은 flush 마다 모든 엔티티를 스냅샷과 비교하고, 향상 후에는 엔티티가 기록한 변경 속성만 본다.
+ * ./gradlew jmh 와 ./gradlew jmh -PnoEnhance 결과의 시간과 gc.alloc.rate.norm 을 비교한다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberFlushBenchmark {
+
+  private static final Logger log = LoggerFactory.getLogger(MemberFlushBenchmark.class);
+
+  @Param({"1000", "10000"})
+  private int members;
+
+  private ConfigurableApplicationContext context;
+  private EntityManagerFactory entityManagerFactory;
+  private EntityManager em;
+  private List<Member> loaded;
+
+  @Setup
+  public void setUp() {
+    context = new SpringApplicationBuilder(QuerydslApplication.class)
+        .web(WebApplicationType.NONE)
+        .run("--spring.profiles.active=benchmark",
+            "--spring.datasource.url=jdbc:h2:mem:member_flush;DB_CLOSE_DELAY=-1",
+            "--spring.jpa.properties.hibernate.show_sql=false",
+            "--spring.jpa.properties.hibernate.format_sql=false",
+            "--spring.jpa.properties.hibernate.use_sql_comments=false",
+            "--logging.level.org.hibernate.SQL=warn",
+            "--decorator.datasource.enabled=false",
+            "--app.warmup.enabled=false");
+    log.info("bytecode enhanced: {}", SelfDirtinessTracker.class.isAssignableFrom(Member.class));
+    entityManagerFactory = context.getBean(EntityManagerFactory.class);
+    EntityManager setup = entityManagerFactory.createEntityManager();
+    setup.getTransaction().begin();
+    Team[] teams = new Team[10];
+    for (int i = 0; i < teams.length; i++) {
+      teams[i] = new Team("team" + i);
+      setup.persist(teams[i]);
+    }
+    for (int i = 0; i < members; i++) {
+      setup.persist(new Member("member" + i, i % 100, teams[i % teams.length]));
+    }
+    setup.getTransaction().commit();
+    setup.close();
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Setup(Level.Invocation)
+  public void load() {
+    em = entityManagerFactory.createEntityManager();
+    em.getTransaction().begin();
+    loaded = em.createQuery("select m from Member m", Member.class).getResultList();
+  }
+
+  @TearDown(Level.Invocation)
+  public void rollback() {
+    em.getTransaction().rollback();
+    em.close();
+  }
+
+  @Benchmark
+  public void flushClean() {
+    em.flush();
+  }
+
+  @Benchmark
+  public void flushOnePercentDirty() {
+    for (int i = 0; i < loaded.size(); i += 100) {
+      Member member = loaded.get(i);
+      member.setAge(member.getAge() + 1);
+    }
+    em.flush();
+  }
+}
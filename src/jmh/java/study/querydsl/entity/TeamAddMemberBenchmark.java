@@ -0,0 +1,108 @@
+package study.querydsl.entity;
+
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+
+/**
+ * 회원이 많은 팀에 회원을 추가하고 회원 수를 세는 비용.
+ * <p>
+ * 추가는 예전(getMembers().add)에도 지금(addMember)도 초기화되지 않은 inverse bag 에 큐로 쌓이므로 동작이 같다.
+ * 바뀐 것은 EXTRA lazy 로 세는 방법이다. extraLazyCount 는 {@link Team#getMemberCount()} (count 쿼리)이고,
+ * loadingCount 는 EXTRA lazy 전의 getMembers().size() 처럼 컬렉션 전체를 읽은 뒤 센다.
+ * 매 호출은 롤백되므로 데이터는 늘어나지 않는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TeamAddMemberBenchmark {
+
+  private static final int NEW_MEMBERS = 100;
+
+  @Param({"1000", "10000"})
+  private int existingMembers;
+
+  private ConfigurableApplicationContext context;
+  private EntityManager em;
+  private TransactionTemplate transactionTemplate;
+  private Long teamId;
+
+  @Setup
+  public void setUp() {
+    context = new SpringApplicationBuilder(QuerydslApplication.class)
+        .web(WebApplicationType.NONE)
+        .run("--spring.profiles.active=benchmark",
+            "--spring.datasource.url=jdbc:h2:mem:team_add_member;DB_CLOSE_DELAY=-1",
+            "--spring.jpa.properties.hibernate.show_sql=false",
+            "--spring.jpa.properties.hibernate.format_sql=false",
+            "--spring.jpa.properties.hibernate.use_sql_comments=false",
+            "--logging.level.org.hibernate.SQL=warn",
+            "--decorator.datasource.enabled=false",
+            "--app.warmup.enabled=false");
+    em = context.getBean(EntityManager.class);
+    transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    teamId = transactionTemplate.execute(status -> {
+      Team team = new Team("bulk");
+      em.persist(team);
+      for (int i = 0; i < existingMembers; i++) {
+        em.persist(new Member("existing" + i, i % 100, team));
+      }
+      return team.getId();
+    });
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public int extraLazyCount() {
+    return addMembersAndCount(false);
+  }
+
+  @Benchmark
+  public int loadingCount() {
+    return addMembersAndCount(true);
+  }
+
+  private int addMembersAndCount(boolean load) {
+    return transactionTemplate.execute(status -> {
+      Team team = em.find(Team.class, teamId);
+      for (int i = 0; i < NEW_MEMBERS; i++) {
+        em.persist(new Member("new" + i, i, team));
+      }
+      em.flush();
+      int count;
+      if (load) {
+        Hibernate.initialize(team.getMembers());
+        count = team.getMembers().size();
+      } else {
+        count = team.getMemberCount();
+      }
+      status.setRollbackOnly();
+      return count;
+    });
+  }
+}
@@ -0,0 +1,113 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.StringUtils;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.QMemberTeamDto;
+
+/**
+ * search 한 번에 쿼리를 만드는 비용 비교. DB 실행은 빼고, 두 방법 모두 em.createQuery 와 파라미터 바인딩까지 잰다.
+ * querydslPerCall 은 매번 Querydsl 로 JPQL 을 직렬화하고, precompiled 는 미리 만든 JPQL 을 쓴다.
+ * 두 쪽 모두 JPQL 문자열이 매번 같으므로 Hibernate 쿼리 플랜 캐시에 걸린다.
+ * <p>
+ * ./gradlew jmh 로 실행하면 gc 프로파일러가 붙어서 gc.alloc.rate.norm (호출당 할당 바이트) 이 같이 나온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemberSearchQueryBenchmark {
+
+  private ConfigurableApplicationContext context;
+  private EntityManager em;
+  private MemberSearchCondition condition;
+
+  @Setup
+  public void setUp() {
+    context = new SpringApplicationBuilder(QuerydslApplication.class)
+        .web(WebApplicationType.NONE)
+        .run("--spring.profiles.active=benchmark",
+            "--spring.datasource.url=jdbc:h2:mem:member_search_query;DB_CLOSE_DELAY=-1",
+            "--spring.jpa.properties.hibernate.show_sql=false",
+            "--logging.level.org.hibernate.SQL=warn",
+            "--decorator.datasource.enabled=false",
+            "--app.warmup.enabled=false");
+    em = context.getBean(EntityManagerFactory.class).createEntityManager();
+    condition = new MemberSearchCondition();
+    condition.setTeamName("teamB");
+    condition.setAgeGoe(35);
+    condition.setAgeLoe(40);
+  }
+
+  @TearDown
+  public void tearDown() {
+    em.close();
+    context.close();
+  }
+
+  @Benchmark
+  public Query querydslPerCall() {
+    return new JPAQuery<>(em)
+        .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age,
+            team.id.as("teamId"), team.name.as("teamName")))
+        .from(member)
+        .leftJoin(member.team, team)
+        .where(usernameEq(condition.getUsername()),
+            teamNameEq(condition.getTeamName()),
+            ageGoe(condition.getAgeGoe()),
+            ageLoe(condition.getAgeLoe())
+        )
+        .orderBy(member.id.asc())
+        .createQuery();
+  }
+
+  @Benchmark
+  public Query precompiled() {
+    int shape = MemberSearchQuery.shapeOf(condition);
+    TypedQuery<Object[]> query = em.createQuery(MemberSearchQuery.contentJpql(shape), Object[].class);
+    MemberSearchQuery.bind(query, shape, condition);
+    return query;
+  }
+
+  private BooleanExpression ageLoe(Integer ageLoe) {
+    return ageLoe != null ? member.age.loe(ageLoe) : null;
+  }
+
+  private BooleanExpression ageGoe(Integer ageGoe) {
+    return ageGoe != null ? member.age.goe(ageGoe) : null;
+  }
+
+  private BooleanExpression teamNameEq(String teamName) {
+    return StringUtils.isEmpty(teamName) ? null : team.name.eq(teamName);
+  }
+
+  private BooleanExpression usernameEq(String username) {
+    return StringUtils.isEmpty(username) ? null : member.username.eq(username);
+  }
+}
@@ -0,0 +1,51 @@
+package study.querydsl.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 부하 테스트용 데이터를 JDBC batch 로 넣는다.
+ * <p>
+ * 팀은 1 ~ teams, 회원은 member0 ~ member(n-1) 이다. 회원의 팀은 Zipf 분포로 정해져 앞 번호 팀일수록 회원이 많다.
+ */
+class LoadTestDataSeeder {
+
+  private static final int BATCH_SIZE = 1_000;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  LoadTestDataSeeder(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  void seed(LoadTestSettings settings) {
+    List<Object[]> teams = new ArrayList<>();
+    for (int i = 1; i <= settings.getTeams(); i++) {
+      teams.add(new Object[]{(long) i, "team" + i});
+    }
+    jdbcTemplate.batchUpdate("insert into team (id, name) values (?, ?)", teams);
+
+    Zipf teamDistribution = new Zipf(settings.getTeams(), settings.getSkew());
+    List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+    for (int i = 0; i < settings.getMembers(); i++) {
+      int age = ThreadLocalRandom.current().nextInt(100);
+      long teamId = teamDistribution.next() + 1L;
+      batch.add(new Object[]{i + 1L, "member" + i, age, teamId});
+      if (batch.size() == BATCH_SIZE) {
+        insertMembers(batch);
+      }
+    }
+    insertMembers(batch);
+  }
+
+  private void insertMembers(List<Object[]> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(
+        "insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", batch);
+    batch.clear();
+  }
+}
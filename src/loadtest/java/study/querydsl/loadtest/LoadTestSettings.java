@@ -0,0 +1,66 @@
+package study.querydsl.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * 부하 테스트 설정. 모두 -Dloadtest.xxx 시스템 프로퍼티로 바꿀 수 있다.
+ * <p>
+ * 가중치 목록은 "이름:가중치,이름:가중치" 형식이다.
+ * <ul>
+ *   <li>loadtest.members, loadtest.teams : 시드 데이터 크기</li>
+ *   <li>loadtest.skew : 팀 분포의 Zipf 지수. 0 이면 균등, 클수록 소수 팀에 회원이 몰린다</li>
+ *   <li>loadtest.concurrency, loadtest.warmupSeconds, loadtest.durationSeconds : 부하 크기와 시간</li>
+ *   <li>loadtest.endpoints : v1, v2, v3 호출 비율</li>
+ *   <li>loadtest.conditions : team, username, age, none 검색 조건 비율.
+ *   none 으로 /v1 을 호출하면 페이지 없이 전체 회원을 읽는다</li>
+ *   <li>loadtest.pageSize, loadtest.poolSize : 페이지 크기, HikariCP 최대 커넥션 수</li>
+ *   <li>loadtest.threadModes : platform, virtual 중 실행할 요청 처리 모드. 여러 개면 차례로 실행한다</li>
+ *   <li>loadtest.minThroughput : 지정하면 처리량이 이 값(req/s)보다 낮을 때 실패로 종료한다</li>
+ * </ul>
+ */
+@Getter
+public class LoadTestSettings {
+
+  private final int members = intValue("members", 200_000);
+  private final int teams = intValue("teams", 200);
+  private final double skew = Double.parseDouble(value("skew", "1.1"));
+  private final int concurrency = intValue("concurrency", 32);
+  private final int warmupSeconds = intValue("warmupSeconds", 10);
+  private final int durationSeconds = intValue("durationSeconds", 30);
+  private final Map<String, Integer> endpoints = weights(value("endpoints", "v1:1,v2:2,v3:2"));
+  private final Map<String, Integer> conditions = weights(value("conditions", "team:5,username:2,age:3"));
+  private final int pageSize = intValue("pageSize", 20);
+  private final int poolSize = intValue("poolSize", 10);
+  private final List<String> threadModes = Arrays.asList(value("threadModes", "platform").split(","));
+  private final double minThroughput = Double.parseDouble(value("minThroughput", "0"));
+
+  private static String value(String name, String defaultValue) {
+    return System.getProperty("loadtest." + name, defaultValue);
+  }
+
+  private static int intValue(String name, int defaultValue) {
+    return Integer.parseInt(value(name, String.valueOf(defaultValue)));
+  }
+
+  private static Map<String, Integer> weights(String spec) {
+    Map<String, Integer> weights = new LinkedHashMap<>();
+    for (String entry : spec.split(",")) {
+      String[] pair = entry.trim().split(":");
+      weights.put(pair[0], pair.length > 1 ? Integer.parseInt(pair[1]) : 1);
+    }
+    return weights;
+  }
+
+  @Override
+  public String toString() {
+    return "members=" + members + ", teams=" + teams + ", skew=" + skew
+        + ", concurrency=" + concurrency + ", warmup=" + warmupSeconds + "s"
+        + ", duration=" + durationSeconds + "s, endpoints=" + endpoints
+        + ", conditions=" + conditions + ", pageSize=" + pageSize + ", poolSize=" + poolSize
+        + ", threadModes=" + threadModes;
+  }
+}
@@ -0,0 +1,233 @@
+package study.querydsl.loadtest;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.config.VirtualThreadPinningMonitor;
+
+/**
+ * /v1, /v2, /v3 회원 검색 API 에 대한 JVM 내 HTTP 부하 테스트.
+ * <p>
+ * 임베디드 H2(in-memory)로 애플리케이션을 띄우고, 치우친 분포의 데이터를 넣은 뒤 설정한 동시성과 조건 비율로 API 를 호출한다.
+ * 워밍업 이후 구간의 처리량, 지연 백분위, HikariCP 풀 포화도를 출력한다.
+ * <pre>
+ * ./gradlew loadTest -Dloadtest.concurrency=64 -Dloadtest.durationSeconds=60
+ * ./gradlew loadTest -Dloadtest.threadModes=platform,virtual
+ * </pre>
+ * threadModes 에 둘 다 주면 Tomcat 플랫폼 스레드 모드와 가상 스레드 모드를 차례로 띄워 같은 부하를 걸고 비교한다.
+ * 설정 목록은 {@link LoadTestSettings} 참고.
+ */
+public class MemberLoadTest {
+
+  public static void main(String[] args) throws Exception {
+    LoadTestSettings settings = new LoadTestSettings();
+    System.out.println("settings: " + settings);
+
+    boolean failed = false;
+    for (String threadMode : settings.getThreadModes()) {
+      System.out.println();
+      System.out.println("== thread mode: " + threadMode);
+      double throughput = run(settings, "virtual".equals(threadMode));
+      if (throughput < settings.getMinThroughput()) {
+        System.out.printf("FAILED: throughput %.1f req/s < minThroughput %.1f req/s%n",
+            throughput, settings.getMinThroughput());
+        failed = true;
+      }
+    }
+    if (failed) {
+      System.exit(1);
+    }
+  }
+
+  private static double run(LoadTestSettings settings, boolean virtualThreads) throws Exception {
+    String database = virtualThreads ? "loadtest_virtual" : "loadtest_platform";
+    ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+        new SpringApplicationBuilder(QuerydslApplication.class).run(
+            "--spring.profiles.active=loadtest",
+            "--server.port=0",
+            "--app.virtual-threads.enabled=" + virtualThreads,
+            "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+            "--spring.datasource.hikari.maximum-pool-size=" + settings.getPoolSize(),
+            "--spring.jpa.properties.hibernate.show_sql=false",
+            "--spring.jpa.properties.hibernate.format_sql=false",
+            "--spring.jpa.properties.hibernate.use_sql_comments=false",
+            "--logging.level.org.hibernate.SQL=warn",
+            "--decorator.datasource.enabled=false");
+    try {
+      DataSource dataSource = context.getBean(DataSource.class);
+      long seedStart = System.nanoTime();
+      new LoadTestDataSeeder(new JdbcTemplate(dataSource)).seed(settings);
+      System.out.printf("seeded %d members in %d ms%n", settings.getMembers(),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+      PoolSampler poolSampler = new PoolSampler(
+          dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean());
+      double throughput = new MemberLoadTest(settings, context.getWebServer().getPort())
+          .run(poolSampler);
+      if (virtualThreads) {
+        System.out.println("pinned: "
+            + context.getBean(VirtualThreadPinningMonitor.class).getPinnedCounts());
+      }
+      return throughput;
+    } finally {
+      context.close();
+    }
+  }
+
+  private final LoadTestSettings settings;
+  private final String baseUrl;
+  private final HttpClient client = HttpClient.newHttpClient();
+  private final WeightedChoice endpoints;
+  private final WeightedChoice conditions;
+  private final Zipf teams;
+
+  private volatile boolean recording;
+  private final AtomicLong errors = new AtomicLong();
+
+  MemberLoadTest(LoadTestSettings settings, int port) {
+    this.settings = settings;
+    this.baseUrl = "http://localhost:" + port;
+    this.endpoints = new WeightedChoice(settings.getEndpoints());
+    this.conditions = new WeightedChoice(settings.getConditions());
+    this.teams = new Zipf(settings.getTeams(), settings.getSkew());
+  }
+
+  double run(PoolSampler poolSampler) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(settings.getConcurrency());
+    long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getWarmupSeconds());
+    long end = warmupEnd + TimeUnit.SECONDS.toNanos(settings.getDurationSeconds());
+
+    List<Future<Map<String, long[]>>> workers = new ArrayList<>();
+    for (int i = 0; i < settings.getConcurrency(); i++) {
+      workers.add(executor.submit(() -> drive(end)));
+    }
+    poolSampler.start();
+    TimeUnit.NANOSECONDS.sleep(warmupEnd - System.nanoTime());
+    recording = true;
+    poolSampler.record(true);
+
+    Map<String, List<long[]>> latencies = new TreeMap<>();
+    for (Future<Map<String, long[]>> worker : workers) {
+      worker.get().forEach((endpoint, values) ->
+          latencies.computeIfAbsent(endpoint, k -> new ArrayList<>()).add(values));
+    }
+    poolSampler.stop();
+    executor.shutdown();
+
+    long requests = 0;
+    List<long[]> all = new ArrayList<>();
+    for (Map.Entry<String, List<long[]>> entry : latencies.entrySet()) {
+      long[] merged = merge(entry.getValue());
+      requests += merged.length;
+      all.add(merged);
+      System.out.println(summary(entry.getKey(), merged, settings.getDurationSeconds()));
+    }
+    System.out.println(summary("total", merge(all), settings.getDurationSeconds()));
+    System.out.println("errors: " + errors.get());
+    System.out.println(poolSampler.report());
+    return (double) requests / settings.getDurationSeconds();
+  }
+
+  private Map<String, long[]> drive(long end) {
+    Map<String, LongList> latencies = new TreeMap<>();
+    while (System.nanoTime() < end) {
+      String endpoint = endpoints.next();
+      HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + endpoint + "/members?"
+          + condition() + ("v1".equals(endpoint) ? "" : "&size=" + settings.getPageSize()))).build();
+      long start = System.nanoTime();
+      try {
+        HttpResponse<Void> response = client.send(request, BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+          errors.incrementAndGet();
+          continue;
+        }
+      } catch (Exception e) {
+        errors.incrementAndGet();
+        continue;
+      }
+      if (recording) {
+        latencies.computeIfAbsent(endpoint, k -> new LongList()).add(System.nanoTime() - start);
+      }
+    }
+    Map<String, long[]> result = new TreeMap<>();
+    latencies.forEach((endpoint, values) -> result.put(endpoint, values.toArray()));
+    return result;
+  }
+
+  private String condition() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    switch (conditions.next()) {
+      case "team":
+        return "teamName=team" + (teams.next() + 1) + "&page=" + random.nextInt(3);
+      case "username":
+        return "username=member" + random.nextInt(settings.getMembers());
+      case "age":
+        int ageGoe = random.nextInt(95);
+        return "ageGoe=" + ageGoe + "&ageLoe=" + (ageGoe + 5) + "&page=" + random.nextInt(3);
+      default:
+        return "page=" + random.nextInt(10);
+    }
+  }
+
+  private static long[] merge(List<long[]> parts) {
+    long[] merged = new long[parts.stream().mapToInt(p -> p.length).sum()];
+    int offset = 0;
+    for (long[] part : parts) {
+      System.arraycopy(part, 0, merged, offset, part.length);
+      offset += part.length;
+    }
+    Arrays.sort(merged);
+    return merged;
+  }
+
+  private static String summary(String name, long[] sorted, int seconds) {
+    if (sorted.length == 0) {
+      return name + ": no requests";
+    }
+    return String.format("%-6s requests=%d, throughput=%.1f req/s, p50=%.2f ms, p90=%.2f ms, p99=%.2f ms, max=%.2f ms",
+        name, sorted.length, (double) sorted.length / seconds,
+        percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+        sorted[sorted.length - 1] / 1_000_000.0);
+  }
+
+  private static double percentile(long[] sorted, double p) {
+    int index = (int) Math.ceil(p * sorted.length) - 1;
+    return sorted[Math.max(index, 0)] / 1_000_000.0;
+  }
+
+  private static class LongList {
+
+    private long[] values = new long[1024];
+    private int size;
+
+    void add(long value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    long[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.loadtest;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HikariCP 풀 상태를 주기적으로 읽어 포화도를 집계한다.
+ */
+class PoolSampler {
+
+  private final HikariPoolMXBean pool;
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  private volatile boolean recording;
+  private long samples;
+  private long activeSum;
+  private long totalSum;
+  private long saturatedSamples;
+  private int maxActive;
+  private int maxWaiting;
+
+  PoolSampler(HikariPoolMXBean pool) {
+    this.pool = pool;
+  }
+
+  void start() {
+    scheduler.scheduleAtFixedRate(this::sample, 0, 50, TimeUnit.MILLISECONDS);
+  }
+
+  void record(boolean recording) {
+    this.recording = recording;
+  }
+
+  void stop() {
+    scheduler.shutdownNow();
+  }
+
+  private synchronized void sample() {
+    if (!recording) {
+      return;
+    }
+    int active = pool.getActiveConnections();
+    int total = pool.getTotalConnections();
+    int waiting = pool.getThreadsAwaitingConnection();
+    samples++;
+    activeSum += active;
+    totalSum += total;
+    if (waiting > 0) {
+      saturatedSamples++;
+    }
+    maxActive = Math.max(maxActive, active);
+    maxWaiting = Math.max(maxWaiting, waiting);
+  }
+
+  synchronized String report() {
+    if (samples == 0) {
+      return "pool: no samples";
+    }
+    return String.format("pool: utilization=%.1f%%, maxActive=%d, maxWaiting=%d, saturated=%.1f%% of samples",
+        totalSum == 0 ? 0 : 100.0 * activeSum / totalSum, maxActive, maxWaiting,
+        100.0 * saturatedSamples / samples);
+  }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 가중치 비율대로 이름을 고른다.
+ */
+class WeightedChoice {
+
+  private final List<String> names = new ArrayList<>();
+  private final int[] cumulative;
+
+  WeightedChoice(Map<String, Integer> weights) {
+    cumulative = new int[weights.size()];
+    int sum = 0;
+    int i = 0;
+    for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+      sum += entry.getValue();
+      names.add(entry.getKey());
+      cumulative[i++] = sum;
+    }
+  }
+
+  String next() {
+    int r = ThreadLocalRandom.current().nextInt(cumulative[cumulative.length - 1]);
+    for (int i = 0; i < cumulative.length; i++) {
+      if (r < cumulative[i]) {
+        return names.get(i);
+      }
+    }
+    return names.get(names.size() - 1);
+  }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 0 ~ n-1 을 Zipf 분포로 뽑는다. 0 번이 가장 자주 나온다.
+ */
+class Zipf {
+
+  private final double[] cumulative;
+
+  Zipf(int n, double exponent) {
+    cumulative = new double[n];
+    double sum = 0;
+    for (int i = 0; i < n; i++) {
+      sum += 1 / Math.pow(i + 1, exponent);
+      cumulative[i] = sum;
+    }
+    for (int i = 0; i < n; i++) {
+      cumulative[i] /= sum;
+    }
+  }
+
+  int next() {
+    double r = ThreadLocalRandom.current().nextDouble();
+    int index = Arrays.binarySearch(cumulative, r);
+    return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+  }
+}
@@ -4,13 +4,17 @@ import com.querydsl.jpa.impl.JPAQueryFactory;
 import javax.persistence.EntityManager;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
 public class QuerydslApplication {
 
   public static void main(String[] args) {
-    SpringApplication.run(QuerydslApplication.class, args);
+    SpringApplication application = new SpringApplication(QuerydslApplication.class);
+    //기동 단계/빈 별 소요 시간 기록 (/actuator/startup, StartupTimelineReporter)
+    application.setApplicationStartup(new BufferingApplicationStartup(4096));
+    application.run(args);
   }
 
 //  @Bean
@@ -0,0 +1,53 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.controller.support.AdaptiveConcurrencyLimiter;
+import study.querydsl.controller.support.ConcurrencyLimitInterceptor;
+
+/**
+ * 회원 검색 API 마다 따로 동시 실행 한도를 둔다.
+ * <p>
+ * count 쿼리까지 실행하는 /v2, /v3 는 /v1 과 한도를 나눠 서로의 부하에 밀리지 않게 한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig implements WebMvcConfigurer {
+
+  private final MeterRegistry meterRegistry;
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double tolerance;
+  private final double backoffRatio;
+
+  public ConcurrencyLimitConfig(MeterRegistry meterRegistry,
+      @Value("${app.concurrency-limit.initial-limit:20}") int initialLimit,
+      @Value("${app.concurrency-limit.min-limit:2}") int minLimit,
+      @Value("${app.concurrency-limit.max-limit:200}") int maxLimit,
+      @Value("${app.concurrency-limit.tolerance:2.0}") double tolerance,
+      @Value("${app.concurrency-limit.backoff-ratio:0.9}") double backoffRatio) {
+    this.meterRegistry = meterRegistry;
+    this.initialLimit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.tolerance = tolerance;
+    this.backoffRatio = backoffRatio;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(interceptor("v1")).addPathPatterns("/v1/members");
+    registry.addInterceptor(interceptor("v2")).addPathPatterns("/v2/members");
+    registry.addInterceptor(interceptor("v3")).addPathPatterns("/v3/members");
+  }
+
+  private ConcurrencyLimitInterceptor interceptor(String name) {
+    return new ConcurrencyLimitInterceptor(new AdaptiveConcurrencyLimiter(name, initialLimit,
+        minLimit, maxLimit, tolerance, backoffRatio, meterRegistry));
+  }
+}
@@ -0,0 +1,44 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.controller.SearchWarmup;
+import study.querydsl.controller.support.FirstRequestLatencyInterceptor;
+
+/**
+ * 기동 후 첫 검색 요청들의 지연을 warm-up 여부와 함께 기록한다. warm-up 을 끈 배포에서도 비교 기준이 되도록 항상 등록한다.
+ */
+@Configuration
+public class FirstRequestLatencyConfig implements WebMvcConfigurer {
+
+  private final MeterRegistry meterRegistry;
+  private final ObjectProvider<SearchWarmup> searchWarmup;
+  private final int firstRequests;
+
+  /**
+   * searchWarmup 은 app.warmup.enabled=true 일 때만 있다.
+   */
+  public FirstRequestLatencyConfig(MeterRegistry meterRegistry,
+      ObjectProvider<SearchWarmup> searchWarmup,
+      @Value("${app.warmup.first-requests:100}") int firstRequests) {
+    this.meterRegistry = meterRegistry;
+    this.searchWarmup = searchWarmup;
+    this.firstRequests = firstRequests;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new FirstRequestLatencyInterceptor(firstRequests, this::warmed,
+            meterRegistry))
+        .addPathPatterns("/v1/members", "/v1/members/batch", "/v2/members", "/v3/members");
+  }
+
+  private boolean warmed() {
+    SearchWarmup warmup = searchWarmup.getIfAvailable();
+    return warmup != null && warmup.isFinished();
+  }
+}
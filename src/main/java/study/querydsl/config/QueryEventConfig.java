@@ -0,0 +1,24 @@
+package study.querydsl.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.repository.support.QueryEvents;
+import study.querydsl.repository.support.QueryExecutionEvent;
+
+/**
+ * {@link QueryExecutionEvent} 의 JDBC 실행 시간을 재는 세션 리스너를 모든 Hibernate 세션에 붙인다.
+ * <p>
+ * JFR 기록 중이 아니면 리스너는 statement 마다 ThreadLocal 을 한 번 보는 것 외에는 하는 일이 없다.
+ * 이벤트는 java -XX:StartFlightRecording 이나 jcmd JFR.start 로 켠다(이벤트 이름 study.querydsl.QueryExecution).
+ */
+@Configuration
+public class QueryEventConfig {
+
+  @Bean
+  public HibernatePropertiesCustomizer jdbcTimingListenerCustomizer() {
+    return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+        QueryEvents.JdbcTimingListener.class.getName());
+  }
+}
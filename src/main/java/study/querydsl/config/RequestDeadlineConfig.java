@@ -0,0 +1,37 @@
+package study.querydsl.config;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.controller.support.RequestDeadlineInterceptor;
+
+/**
+ * 회원/팀 조회 API 의 요청 마감 시간. count 쿼리까지 실행하는 /v2, /v3 는 기본값을 따로 둔다.
+ * 조회 endpoint 를 추가하면 여기에도 등록한다. PATCH /v1/members/{id} 같은 쓰기는 넣지 않는다.
+ */
+@Configuration
+public class RequestDeadlineConfig implements WebMvcConfigurer {
+
+  private final Duration maxBudget;
+  private final Duration listBudget;
+  private final Duration pageBudget;
+
+  public RequestDeadlineConfig(
+      @Value("${app.deadline.max-ms:10000}") long maxMillis,
+      @Value("${app.deadline.list-ms:2000}") long listMillis,
+      @Value("${app.deadline.page-ms:3000}") long pageMillis) {
+    this.maxBudget = Duration.ofMillis(maxMillis);
+    this.listBudget = Duration.ofMillis(listMillis);
+    this.pageBudget = Duration.ofMillis(pageMillis);
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new RequestDeadlineInterceptor(listBudget, maxBudget))
+        .addPathPatterns("/v1/members", "/v1/members/batch", "/v1/teams", "/v1/teams/oldest-members");
+    registry.addInterceptor(new RequestDeadlineInterceptor(pageBudget, maxBudget))
+        .addPathPatterns("/v2/members", "/v3/members");
+  }
+}
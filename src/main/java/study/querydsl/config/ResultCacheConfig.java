@@ -0,0 +1,26 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.repository.cache.MemberPageCache;
+import study.querydsl.repository.support.TableVersions;
+
+/**
+ * app.result-cache.enabled=true 이면 회원 검색 페이지를 힙 밖 캐시에 둔다.
+ * <p>
+ * direct 메모리는 -XX:MaxDirectMemorySize(기본값은 최대 힙 크기) 안에서 잡히므로 max-bytes 는 그보다 작게 둔다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.result-cache.enabled", havingValue = "true")
+public class ResultCacheConfig {
+
+  @Bean
+  public MemberPageCache memberPageCache(TableVersions tableVersions, MeterRegistry meterRegistry,
+      @Value("${app.result-cache.max-bytes:67108864}") long maxBytes,
+      @Value("${app.result-cache.block-bytes:4096}") int blockBytes) {
+    return new MemberPageCache(maxBytes, blockBytes, tableVersions, meterRegistry);
+  }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.shard.MemberShards;
+
+/**
+ * app.sharding.enabled=true 이면 app.sharding.urls 의 DB 들을 회원 샤드로 쓴다.
+ * <p>
+ * 샤드용 EntityManagerFactory 는 빈으로 등록하지 않는다. 등록하면 기본 DataSource 의 JPA 자동 설정이 꺼진다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+  private final List<LocalContainerEntityManagerFactoryBean> factories = new ArrayList<>();
+  private final List<HikariDataSource> dataSources = new ArrayList<>();
+
+  @Bean(destroyMethod = "close")
+  public MemberShards memberShards(EntityManagerFactoryBuilder builder,
+      @Value("${app.sharding.urls}") List<String> urls,
+      @Value("${app.sharding.username:sa}") String username,
+      @Value("${app.sharding.password:}") String password,
+      @Value("${app.sharding.ddl-auto:none}") String ddlAuto) {
+    List<EntityManagerFactory> shards = new ArrayList<>();
+    for (int i = 0; i < urls.size(); i++) {
+      HikariDataSource dataSource = DataSourceBuilder.create()
+          .type(HikariDataSource.class)
+          .url(urls.get(i))
+          .username(username)
+          .password(password)
+          .build();
+      dataSources.add(dataSource);
+      LocalContainerEntityManagerFactoryBean factory = builder
+          .dataSource(dataSource)
+          .packages(Member.class)
+          .persistenceUnit("shard" + i)
+          .properties(Map.of("hibernate.hbm2ddl.auto", ddlAuto))
+          .build();
+      factory.afterPropertiesSet();
+      factories.add(factory);
+      shards.add(factory.getObject());
+    }
+    return new MemberShards(shards);
+  }
+
+  @PreDestroy
+  public void closeShards() {
+    factories.forEach(LocalContainerEntityManagerFactoryBean::destroy);
+    dataSources.forEach(HikariDataSource::close);
+  }
+}
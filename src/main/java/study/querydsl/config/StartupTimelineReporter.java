@@ -0,0 +1,80 @@
+package study.querydsl.config;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep.Tag;
+import org.springframework.stereotype.Component;
+
+/**
+ * fast-startup 프로필에서 기동이 끝나면 단계별 합계와 가장 오래 걸린 빈 생성 단계를 로그로 남긴다.
+ * 전체 타임라인은 /actuator/startup 으로 볼 수 있다.
+ * <p>
+ * app.startup.exit-on-ready=true 이면 기동 직후 종료한다. Gradle cdsArchive 태스크가 AppCDS 아카이브를 만들 때 쓴다.
+ */
+@Slf4j
+@Component
+@Profile("fast-startup")
+public class StartupTimelineReporter {
+
+  private static final int TOP_STEPS = 20;
+
+  private final boolean exitOnReady;
+
+  public StartupTimelineReporter(@Value("${app.startup.exit-on-ready:false}") boolean exitOnReady) {
+    this.exitOnReady = exitOnReady;
+  }
+
+  @EventListener
+  public void onReady(ApplicationReadyEvent event) {
+    ConfigurableApplicationContext context = event.getApplicationContext();
+    log.info("time to ready: {} ms", event.getTimeTaken() == null ? -1 : event.getTimeTaken().toMillis());
+    ApplicationStartup startup = context.getApplicationStartup();
+    if (startup instanceof BufferingApplicationStartup) {
+      report(((BufferingApplicationStartup) startup).getBufferedTimeline());
+    }
+    if (exitOnReady) {
+      System.exit(SpringApplication.exit(context));
+    }
+  }
+
+  private void report(StartupTimeline timeline) {
+    Map<String, Duration> byPhase = new TreeMap<>();
+    for (TimelineEvent event : timeline.getEvents()) {
+      byPhase.merge(event.getStartupStep().getName(), event.getDuration(), Duration::plus);
+    }
+    byPhase.forEach((phase, duration) -> log.info("startup phase {}: {} ms", phase, duration.toMillis()));
+
+    List<TimelineEvent> slowest = timeline.getEvents().stream()
+        .filter(event -> "spring.beans.instantiate".equals(event.getStartupStep().getName()))
+        .sorted(Comparator.comparing(TimelineEvent::getDuration).reversed())
+        .limit(TOP_STEPS)
+        .collect(Collectors.toList());
+    for (TimelineEvent event : slowest) {
+      log.info("startup bean {}: {} ms", beanName(event), event.getDuration().toMillis());
+    }
+  }
+
+  private String beanName(TimelineEvent event) {
+    for (Tag tag : event.getStartupStep().getTags()) {
+      if ("beanName".equals(tag.getKey())) {
+        return tag.getValue();
+      }
+    }
+    return "?";
+  }
+}
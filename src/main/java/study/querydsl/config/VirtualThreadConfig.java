@@ -0,0 +1,24 @@
+package study.querydsl.config;
+
+import java.util.concurrent.Executors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * app.virtual-threads.enabled=true 이면 Tomcat 요청 처리를 가상 스레드에서 한다.
+ * <p>
+ * 리포지토리 호출은 요청 스레드에서 그대로 실행되므로 JPAQuery.fetch() 같은 블로킹 JDBC 호출도 가상 스레드 위에서 돈다.
+ * 블로킹 중에는 캐리어 스레드를 돌려주므로 느린 쿼리가 몰려도 Tomcat 스레드 풀이 먼저 바닥나지 않는다.
+ * 대신 동시 요청 수의 상한은 HikariCP 풀 크기가 된다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadExecutorCustomizer() {
+    return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+  }
+}
@@ -0,0 +1,92 @@
+package study.querydsl.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 가상 스레드가 캐리어 스레드에 고정(pinning)되는 것을 JFR 이벤트(jdk.VirtualThreadPinned)로 감시한다.
+ * <p>
+ * synchronized 안에서 블로킹하면 가상 스레드가 캐리어 스레드를 놓지 못한다. H2 드라이버, HikariCP, Hibernate 는
+ * synchronized 를 쓰는 곳이 있으므로, 고정된 스택에서 이 라이브러리들의 첫 프레임을 찾아 위치별로 센다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+  private static final String[] WATCHED_PACKAGES = {
+      "org.h2.", "com.zaxxer.hikari.", "com.p6spy.", "org.hibernate.", "com.querydsl."
+  };
+
+  private final Duration threshold;
+  private final ConcurrentMap<String, LongAdder> pinnedCounts = new ConcurrentHashMap<>();
+  private RecordingStream stream;
+
+  public VirtualThreadPinningMonitor(
+      @Value("${app.virtual-threads.pinned-threshold-ms:20}") long thresholdMillis) {
+    this.threshold = Duration.ofMillis(thresholdMillis);
+  }
+
+  @PostConstruct
+  public void start() {
+    stream = new RecordingStream();
+    stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+    stream.onEvent(PINNED_EVENT, this::onPinned);
+    stream.startAsync();
+  }
+
+  @PreDestroy
+  public void stop() {
+    stream.close();
+  }
+
+  /**
+   * 고정 위치(라이브러리 프레임)별 발생 횟수.
+   */
+  public Map<String, Long> getPinnedCounts() {
+    Map<String, Long> counts = new TreeMap<>();
+    pinnedCounts.forEach((frame, count) -> counts.put(frame, count.sum()));
+    return counts;
+  }
+
+  private void onPinned(RecordedEvent event) {
+    String frame = locate(event.getStackTrace());
+    pinnedCounts.computeIfAbsent(frame, k -> new LongAdder()).increment();
+    log.warn("virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), frame);
+  }
+
+  private String locate(RecordedStackTrace stackTrace) {
+    if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+      return "unknown";
+    }
+    for (RecordedFrame frame : stackTrace.getFrames()) {
+      String type = frame.getMethod().getType().getName();
+      for (String watched : WATCHED_PACKAGES) {
+        if (type.startsWith(watched)) {
+          return describe(frame);
+        }
+      }
+    }
+    return describe(stackTrace.getFrames().get(0));
+  }
+
+  private String describe(RecordedFrame frame) {
+    return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+        + ":" + frame.getLineNumber();
+  }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import javax.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.repository.MemberUpdateBuffer;
+
+/**
+ * app.write-buffer.enabled=true 이면 PATCH /v1/members/{id} 를 group commit 버퍼로 처리한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.write-buffer.enabled", havingValue = "true")
+public class WriteBufferConfig {
+
+  @Bean
+  public MemberUpdateBuffer memberUpdateBuffer(EntityManager em,
+      TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+      @Value("${app.write-buffer.capacity:10000}") int capacity,
+      @Value("${app.write-buffer.batch-size:500}") int batchSize,
+      @Value("${app.write-buffer.max-delay-ms:10}") long maxDelayMillis,
+      @Value("${app.write-buffer.offer-timeout-ms:100}") long offerTimeoutMillis) {
+    return new MemberUpdateBuffer(em, transactionTemplate, meterRegistry, capacity, batchSize,
+        Duration.ofMillis(maxDelayMillis), Duration.ofMillis(offerTimeoutMillis));
+  }
+}
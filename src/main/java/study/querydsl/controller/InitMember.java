@@ -4,22 +4,44 @@ import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
+/**
+ * app.init-member.background=true 이면 기동 경로에서 빼서, 기동이 끝난 뒤 별도 스레드에서 데이터를 넣는다.
+ */
 @Profile("local")
 @Component
+@Lazy(false)
 @RequiredArgsConstructor
 public class InitMember {
 
   private final InitMemberService initMemberService;
 
+  @Value("${app.init-member.background:false}")
+  private boolean background;
+
   @PostConstruct
   public void init() {
-    initMemberService.init();
+    if (!background) {
+      initMemberService.init();
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void initInBackground() {
+    if (background) {
+      Thread thread = new Thread(initMemberService::init, "init-member");
+      thread.setDaemon(true);
+      thread.start();
+    }
   }
 
   @Component
@@ -1,13 +1,31 @@
 package study.querydsl.controller;
 
+import static study.querydsl.controller.MemberResponseWriter.COLUMNAR_JSON_VALUE;
+import static study.querydsl.controller.MemberResponseWriter.COLUMNAR_SMILE_VALUE;
+
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberField;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
 
@@ -15,21 +33,119 @@ import study.querydsl.repository.MemberRepository;
 @RequiredArgsConstructor
 public class MemberController {
 
+  private static final int MAX_BATCH_CONDITIONS = 100;
+
   private final MemberJpaRepository memberJpaRepository;
   private final MemberRepository memberRepository;
+  private final MemberResponseWriter memberResponseWriter;
+  private final MemberSearchETag memberSearchETag;
 
   @GetMapping("/v1/members")
   public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
     return memberJpaRepository.search(condition);
   }
 
+  /**
+   * 조건 목록을 한 번의 쿼리로 조회한다. 결과는 조건과 같은 순서의 목록이다.
+   */
+  @PostMapping("/v1/members/batch")
+  public List<List<MemberTeamDto>> searchMemberV1Batch(
+      @RequestBody List<MemberSearchCondition> conditions) {
+    if (conditions.size() > MAX_BATCH_CONDITIONS) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "at most " + MAX_BATCH_CONDITIONS + " conditions per batch");
+    }
+    return memberJpaRepository.searchAll(conditions);
+  }
+
+  @GetMapping(value = "/v1/members", produces = {COLUMNAR_JSON_VALUE, COLUMNAR_SMILE_VALUE})
+  public void searchMemberV1Columnar(MemberSearchCondition condition,
+      HttpServletRequest request, HttpServletResponse response) throws IOException {
+    rejectFields(request);
+    memberResponseWriter.write(request, response, memberJpaRepository.search(condition), null);
+  }
+
   @GetMapping("/v2/members")
-  public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+  public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+      WebRequest webRequest) {
+    if (webRequest.checkNotModified(memberSearchETag.of(condition, pageable, "json"))) {
+      return null;
+    }
     return memberRepository.searchPageSimple(condition, pageable);
   }
 
+  @GetMapping(value = "/v2/members", produces = {COLUMNAR_JSON_VALUE, COLUMNAR_SMILE_VALUE})
+  public void searchMemberV2Columnar(MemberSearchCondition condition, Pageable pageable,
+      ServletWebRequest webRequest) throws IOException {
+    HttpServletRequest request = webRequest.getRequest();
+    rejectFields(request);
+    String variant = MemberResponseWriter.negotiate(request.getHeader(HttpHeaders.ACCEPT)).toString();
+    if (webRequest.checkNotModified(memberSearchETag.of(condition, pageable, variant))) {
+      return;
+    }
+    Page<MemberTeamDto> page = memberRepository.searchPageSimple(condition, pageable);
+    HttpServletResponse response = webRequest.getResponse();
+    memberResponseWriter.write(request, response, page.getContent(), page);
+  }
+
   @GetMapping("/v3/members")
-  public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+  public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+      WebRequest webRequest) {
+    if (webRequest.checkNotModified(memberSearchETag.of(condition, pageable, "json"))) {
+      return null;
+    }
     return memberRepository.searchPageComplex(condition, pageable);
   }
+
+  @GetMapping(value = "/v3/members", produces = {COLUMNAR_JSON_VALUE, COLUMNAR_SMILE_VALUE})
+  public void searchMemberV3Columnar(MemberSearchCondition condition, Pageable pageable,
+      ServletWebRequest webRequest) throws IOException {
+    HttpServletRequest request = webRequest.getRequest();
+    rejectFields(request);
+    String variant = MemberResponseWriter.negotiate(request.getHeader(HttpHeaders.ACCEPT)).toString();
+    if (webRequest.checkNotModified(memberSearchETag.of(condition, pageable, variant))) {
+      return;
+    }
+    Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, pageable);
+    HttpServletResponse response = webRequest.getResponse();
+    memberResponseWriter.write(request, response, page.getContent(), page);
+  }
+
+  /**
+   * fields=memberId,username 처럼 고른 컬럼만 조회해서 돌려준다. JSON 만 쓴다.
+   */
+  @GetMapping(value = "/v1/members", params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+  public List<Map<String, Object>> searchMemberV1Fields(MemberSearchCondition condition,
+      @RequestParam List<String> fields) {
+    return memberRepository.searchFields(condition, parseFields(fields));
+  }
+
+  @GetMapping(value = {"/v2/members", "/v3/members"}, params = "fields",
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public Page<Map<String, Object>> searchMemberPageFields(MemberSearchCondition condition,
+      Pageable pageable, @RequestParam List<String> fields, WebRequest webRequest) {
+    Set<MemberField> selected = parseFields(fields);
+    if (webRequest.checkNotModified(memberSearchETag.of(condition, pageable, "json" + selected))) {
+      return null;
+    }
+    return memberRepository.searchPageFields(condition, selected, pageable);
+  }
+
+  /**
+   * fields= 는 JSON 으로만 돌려준다. 컬럼형 Accept 와 함께 오면 고른 컬럼을 무시하고 답하지 않도록 406 으로 거절한다.
+   */
+  private void rejectFields(HttpServletRequest request) {
+    if (request.getParameter("fields") != null) {
+      throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE,
+          "fields is only supported for " + MediaType.APPLICATION_JSON_VALUE);
+    }
+  }
+
+  private Set<MemberField> parseFields(List<String> fields) {
+    try {
+      return MemberField.parse(fields);
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+    }
+  }
 }
@@ -0,0 +1,136 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.CountedPage;
+
+/**
+ * 회원 검색 결과를 컬럼 단위(columnar)로 응답 스트림에 바로 쓴다.
+ * <p>
+ * 필드 이름은 컬럼마다 한 번만 쓰고, PageImpl 대신 필요한 페이지 정보만 내보낸다.
+ * <pre>
+ * {"memberId":[1,2],"username":["member1","member2"],"age":[10,20],"teamId":[1,1],"teamName":["teamA","teamA"],
+ *  "page":{"number":0,"size":20,"totalElements":2,"totalPages":1}}
+ * </pre>
+ * /v3 처럼 total 을 추정할 수 있는 페이지({@link CountedPage})는 page 에 totalExact 도 넣는다.
+ * JSON 과 같은 구조를 Smile(바이너리 JSON)로도 쓸 수 있다.
+ */
+@Component
+public class MemberResponseWriter {
+
+  public static final String COLUMNAR_JSON_VALUE = "application/vnd.member.columnar+json";
+  public static final String COLUMNAR_SMILE_VALUE = "application/vnd.member.columnar+smile";
+  public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType(COLUMNAR_JSON_VALUE);
+  public static final MediaType COLUMNAR_SMILE = MediaType.parseMediaType(COLUMNAR_SMILE_VALUE);
+
+  private final JsonFactory jsonFactory;
+  private final JsonFactory smileFactory;
+
+  public MemberResponseWriter(ObjectMapper objectMapper) {
+    this.jsonFactory = objectMapper.getFactory();
+    this.smileFactory = new SmileFactory();
+  }
+
+  public void write(HttpServletRequest request, HttpServletResponse response,
+      List<MemberTeamDto> content, Page<?> page) throws IOException {
+    MediaType mediaType = negotiate(request.getHeader(HttpHeaders.ACCEPT));
+    response.setContentType(mediaType.toString());
+    write(mediaType, response.getOutputStream(), content, page);
+  }
+
+  public void write(MediaType mediaType, OutputStream out, List<MemberTeamDto> content,
+      Page<?> page) throws IOException {
+    JsonFactory factory = COLUMNAR_SMILE.equalsTypeAndSubtype(mediaType) ? smileFactory : jsonFactory;
+    // out 은 호출한 쪽(서블릿 컨테이너)이 닫는다. generator 를 닫을 때 flush 만 한다.
+    try (JsonGenerator generator = factory.createGenerator(out)
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+      writeColumnar(generator, content, page);
+    }
+  }
+
+  static MediaType negotiate(String accept) {
+    if (accept == null) {
+      return COLUMNAR_JSON;
+    }
+    List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+    MediaType.sortBySpecificityAndQuality(accepted);
+    for (MediaType mediaType : accepted) {
+      if (mediaType.isCompatibleWith(COLUMNAR_SMILE) && !mediaType.isCompatibleWith(COLUMNAR_JSON)) {
+        return COLUMNAR_SMILE;
+      }
+      if (mediaType.isCompatibleWith(COLUMNAR_JSON)) {
+        return COLUMNAR_JSON;
+      }
+    }
+    return COLUMNAR_JSON;
+  }
+
+  private void writeColumnar(JsonGenerator generator, List<MemberTeamDto> content, Page<?> page)
+      throws IOException {
+    generator.writeStartObject();
+
+    generator.writeArrayFieldStart("memberId");
+    for (MemberTeamDto dto : content) {
+      writeNumber(generator, dto.getMemberId());
+    }
+    generator.writeEndArray();
+
+    generator.writeArrayFieldStart("username");
+    for (MemberTeamDto dto : content) {
+      generator.writeString(dto.getUsername());
+    }
+    generator.writeEndArray();
+
+    generator.writeArrayFieldStart("age");
+    for (MemberTeamDto dto : content) {
+      generator.writeNumber(dto.getAge());
+    }
+    generator.writeEndArray();
+
+    generator.writeArrayFieldStart("teamId");
+    for (MemberTeamDto dto : content) {
+      writeNumber(generator, dto.getTeamId());
+    }
+    generator.writeEndArray();
+
+    generator.writeArrayFieldStart("teamName");
+    for (MemberTeamDto dto : content) {
+      generator.writeString(dto.getTeamName());
+    }
+    generator.writeEndArray();
+
+    if (page != null) {
+      generator.writeObjectFieldStart("page");
+      generator.writeNumberField("number", page.getNumber());
+      generator.writeNumberField("size", page.getSize());
+      generator.writeNumberField("totalElements", page.getTotalElements());
+      generator.writeNumberField("totalPages", page.getTotalPages());
+      if (page instanceof CountedPage) {
+        generator.writeBooleanField("totalExact", ((CountedPage<?>) page).isTotalExact());
+      }
+      generator.writeEndObject();
+    }
+
+    generator.writeEndObject();
+  }
+
+  private void writeNumber(JsonGenerator generator, Long value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else {
+      generator.writeNumber(value);
+    }
+  }
+}
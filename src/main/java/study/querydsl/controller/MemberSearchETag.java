@@ -0,0 +1,29 @@
+package study.querydsl.controller;
+
+import java.nio.charset.StandardCharsets;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberSearchKey;
+import study.querydsl.repository.support.TableVersions;
+
+/**
+ * 회원 검색 응답의 ETag.
+ * <p>
+ * Member / Team 테이블 버전, 정규화한 검색 조건과 페이지 정보({@link MemberSearchKey}), 응답 형식으로 만든다.
+ * 버전은 쿼리 실행 전에 읽어야 한다. 쿼리 도중 커밋이 끼어들어도 ETag 가 옛 버전이 되어 다음 요청에서 다시 조회된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSearchETag {
+
+  private final TableVersions tableVersions;
+
+  public String of(MemberSearchCondition condition, Pageable pageable, String variant) {
+    String key = tableVersions.getEpoch() + ":" + tableVersions.getMemberVersion() + ":"
+        + tableVersions.getTeamVersion() + "|" + MemberSearchKey.of(condition, pageable) + "|" + variant;
+    return "\"" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + "\"";
+  }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.controller;
+
+import java.util.concurrent.CompletableFuture;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.MemberUpdateDto;
+import study.querydsl.repository.MemberUpdateBuffer;
+
+/**
+ * 응답은 수정이 커밋된 뒤에 나간다. 요청 스레드는 기다리지 않는다(비동기 응답).
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.write-buffer.enabled", havingValue = "true")
+public class MemberUpdateController {
+
+  private final MemberUpdateBuffer memberUpdateBuffer;
+
+  @PatchMapping("/v1/members/{id}")
+  public CompletableFuture<ResponseEntity<Void>> updateMember(@PathVariable Long id,
+      @RequestBody MemberUpdateDto update) {
+    return memberUpdateBuffer.submit(id, update)
+        .thenApply(committed -> ResponseEntity.noContent().build());
+  }
+}
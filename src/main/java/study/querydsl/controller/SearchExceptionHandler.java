@@ -0,0 +1,39 @@
+package study.querydsl.controller;
+
+import javax.persistence.EntityNotFoundException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import study.querydsl.repository.WriteBufferFullException;
+
+@RestControllerAdvice
+public class SearchExceptionHandler {
+
+  /**
+   * 요청 마감 시간을 넘긴 검색. 과부하 신호이므로 503 으로 돌려준다.
+   */
+  @ExceptionHandler({QueryTimeoutException.class, javax.persistence.QueryTimeoutException.class})
+  public ResponseEntity<Void> queryTimeout() {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .build();
+  }
+
+  /**
+   * 쓰기 버퍼가 가득 찼다. 잠시 뒤 다시 보내도록 503 으로 돌려준다.
+   */
+  @ExceptionHandler(WriteBufferFullException.class)
+  public ResponseEntity<Void> writeBufferFull() {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .build();
+  }
+
+  @ExceptionHandler(EntityNotFoundException.class)
+  public ResponseEntity<Void> notFound() {
+    return ResponseEntity.notFound().build();
+  }
+}
@@ -0,0 +1,148 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.cache.MemberPageCache;
+
+/**
+ * 트래픽을 받기 전에 회원 검색을 미리 실행해서 Hibernate 쿼리 플랜 캐시, Querydsl 직렬화, JIT 를 데운다.
+ * <p>
+ * MemberSearchCondition 의 조건 조합 16개 x 페이지 변형마다 /v1, /v2, /v3 와 같은 리포지토리 호출과 JSON 직렬화를
+ * 읽기 전용 트랜잭션에서 실행하고 롤백한다. 이것을 budget 동안 반복한다. 페이지 결과 캐시는 거치지 않는다.
+ * 캐시에 맞으면 두 번째 반복부터 쿼리가 실행되지 않기 때문이다.
+ * ApplicationRunner 이므로 끝나기 전에는 readiness 가 ACCEPTING_TRAFFIC 이 되지 않는다.
+ * <p>
+ * 첫 번째 반복과 마지막 반복에서 warm-up 호출 하나하나의 지연을 warmup.search.pass.latency (phase=first|last) 로 남긴다.
+ * warm-up 자신의 호출 시간이고, 실제 첫 요청들의 지연은 search.first.requests.latency
+ * ({@link study.querydsl.controller.support.FirstRequestLatencyInterceptor})에 warmed 태그와 함께 남는다.
+ * <p>
+ * 기본은 꺼져 있다(app.warmup.enabled). import / export 실행이나 벤치마크처럼 트래픽을 받지 않는 기동에서는 켜지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true")
+public class SearchWarmup implements ApplicationRunner {
+
+  private static final int SHAPES = 16;
+  private static final List<Pageable> PAGES = List.of(
+      PageRequest.of(0, 20), PageRequest.of(1, 20), PageRequest.of(0, 100));
+
+  private final MemberJpaRepository memberJpaRepository;
+  private final MemberRepository memberRepository;
+  private final ObjectMapper objectMapper;
+  private final MeterRegistry meterRegistry;
+  private final TransactionTemplate readOnlyTransaction;
+  private final Duration budget;
+  private volatile boolean finished;
+
+  public SearchWarmup(MemberJpaRepository memberJpaRepository, MemberRepository memberRepository,
+      ObjectMapper objectMapper, MeterRegistry meterRegistry,
+      PlatformTransactionManager transactionManager,
+      @Value("${app.warmup.budget-ms:10000}") long budgetMillis) {
+    this.memberJpaRepository = memberJpaRepository;
+    this.memberRepository = memberRepository;
+    this.objectMapper = objectMapper;
+    this.meterRegistry = meterRegistry;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.budget = Duration.ofMillis(budgetMillis);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    long start = System.nanoTime();
+    long end = start + budget.toNanos();
+
+    long first = runAll("first");
+    long last = first;
+    int iterations = 1;
+    while (System.nanoTime() < end) {
+      last = runAll(System.nanoTime() + last >= end ? "last" : null);
+      iterations++;
+    }
+
+    log.info("search warm-up: {} iterations in {} ms, first pass {} ms, last pass {} ms",
+        iterations, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+        TimeUnit.NANOSECONDS.toMillis(first), TimeUnit.NANOSECONDS.toMillis(last));
+    finished = true;
+  }
+
+  /**
+   * warm-up 을 한 번이라도 끝까지 실행했는지.
+   */
+  public boolean isFinished() {
+    return finished;
+  }
+
+  /**
+   * 모든 조합을 한 번씩 실행하고 걸린 시간을 돌려준다. phase 가 있으면 호출별 지연을 기록한다.
+   */
+  private long runAll(String phase) {
+    long start = System.nanoTime();
+    for (int shape = 0; shape < SHAPES; shape++) {
+      MemberSearchCondition condition = condition(shape);
+      execute("v1", phase, () -> memberJpaRepository.search(condition));
+      for (Pageable pageable : PAGES) {
+        execute("v2", phase, () -> memberRepository.searchPageSimple(condition, pageable));
+        execute("v3", phase, () -> memberRepository.searchPageComplex(condition, pageable));
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  private void execute(String endpoint, String phase, Supplier<Object> search) {
+    long start = System.nanoTime();
+    readOnlyTransaction.executeWithoutResult(status -> {
+      try {
+        objectMapper.writeValueAsBytes(MemberPageCache.bypass(search));
+      } catch (JsonProcessingException e) {
+        throw new IllegalStateException(e);
+      } finally {
+        status.setRollbackOnly();
+      }
+    });
+    if (phase != null) {
+      Timer.builder("warmup.search.pass.latency")
+          .tag("endpoint", endpoint)
+          .tag("phase", phase)
+          .register(meterRegistry)
+          .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private MemberSearchCondition condition(int shape) {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    if ((shape & 1) != 0) {
+      condition.setUsername("member1");
+    }
+    if ((shape & 2) != 0) {
+      condition.setTeamName("teamA");
+    }
+    if ((shape & 4) != 0) {
+      condition.setAgeGoe(10);
+    }
+    if ((shape & 8) != 0) {
+      condition.setAgeLoe(40);
+    }
+    return condition;
+  }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.controller;
+
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.repository.TeamRepository;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+  private static final int MAX_TOP_MEMBERS = 100;
+
+  private final TeamRepository teamRepository;
+
+  @GetMapping("/v1/teams")
+  public Page<TeamMembersDto> searchTeamsV1(Pageable pageable) {
+    return teamRepository.searchTeamsWithMembers(pageable);
+  }
+
+  @GetMapping("/v1/teams/oldest-members")
+  public List<TeamMembersDto> searchOldestMembersV1(
+      @RequestParam(defaultValue = "3") int limit) {
+    if (limit < 1 || limit > MAX_TOP_MEMBERS) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "limit must be between 1 and " + MAX_TOP_MEMBERS);
+    }
+    return teamRepository.searchOldestMembersPerTeam(limit);
+  }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.controller.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 지연 시간을 보고 동시 실행 한도를 조절하는 AIMD 방식 리미터.
+ * <p>
+ * 부하가 없을 때의 지연(baseline)을 천천히 학습한다. 끝난 요청의 지연이 baseline * tolerance 를 넘거나 실패하면
+ * 한도를 backoffRatio 배로 줄이고(multiplicative decrease), 한도의 절반 이상을 쓰는 중에 빠르게 끝나면
+ * 한도를 1/limit 만큼 늘린다(additive increase). 한도를 넘는 요청은 기다리지 않고 바로 거절한다.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double tolerance;
+  private final double backoffRatio;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private volatile double limit;
+  private double baselineNanos;
+
+  private final Counter rejected;
+  private final Timer latency;
+
+  public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+      double tolerance, double backoffRatio, MeterRegistry registry) {
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.tolerance = tolerance;
+    this.backoffRatio = backoffRatio;
+
+    this.rejected = Counter.builder("concurrency.limit.rejected")
+        .tag("limiter", name)
+        .register(registry);
+    this.latency = Timer.builder("concurrency.limit.latency")
+        .tag("limiter", name)
+        .register(registry);
+    Gauge.builder("concurrency.limit.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+        .tag("limiter", name)
+        .register(registry);
+    Gauge.builder("concurrency.limit.in.flight", inFlight, AtomicInteger::get)
+        .tag("limiter", name)
+        .register(registry);
+  }
+
+  /**
+   * 한도 안이면 자리를 잡고 true. 자리를 잡았으면 끝날 때 반드시 {@link #release(long, boolean)} 를 호출해야 한다.
+   */
+  public boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= getLimit()) {
+        rejected.increment();
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  public void release(long latencyNanos, boolean failed) {
+    int inFlightAtCompletion = inFlight.getAndDecrement();
+    latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+    update(latencyNanos, failed, inFlightAtCompletion);
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  private synchronized void update(long latencyNanos, boolean failed, int inFlightAtCompletion) {
+    if (baselineNanos == 0) {
+      baselineNanos = latencyNanos;
+    }
+    boolean slow = latencyNanos > baselineNanos * tolerance;
+    if (failed || slow) {
+      limit = Math.max(minLimit, limit * backoffRatio);
+    } else if (inFlightAtCompletion * 2 >= limit) {
+      limit = Math.min(maxLimit, limit + 1 / limit);
+    }
+    // 과부하 중의 지연으로 baseline 이 따라 올라가지 않도록 느린 요청은 아주 조금만 반영한다
+    baselineNanos += (latencyNanos - baselineNanos) * (slow ? 0.001 : 0.05);
+  }
+}
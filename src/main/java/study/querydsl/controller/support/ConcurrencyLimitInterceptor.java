@@ -0,0 +1,43 @@
+package study.querydsl.controller.support;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 리미터 한도를 넘는 요청은 컨트롤러에 들어가기 전에 503 + Retry-After 로 바로 돌려보낸다.
+ */
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+  private static final String START = ConcurrencyLimitInterceptor.class.getName() + ".START";
+
+  private final AdaptiveConcurrencyLimiter limiter;
+
+  public ConcurrencyLimitInterceptor(AdaptiveConcurrencyLimiter limiter) {
+    this.limiter = limiter;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    if (!limiter.tryAcquire()) {
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      return false;
+    }
+    request.setAttribute(START, System.nanoTime());
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    Long start = (Long) request.getAttribute(START);
+    if (start != null) {
+      boolean failed = ex != null || response.getStatus() >= 500;
+      limiter.release(System.nanoTime() - start, failed);
+    }
+  }
+}
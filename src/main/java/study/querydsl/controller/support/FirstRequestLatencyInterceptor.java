@@ -0,0 +1,61 @@
+package study.querydsl.controller.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * 기동 후 처음 들어온 검색 요청 limit 개의 지연을 search.first.requests.latency (uri, warmed) 로 남긴다.
+ * <p>
+ * warmed 는 요청이 시작될 때 warm-up 이 끝나 있었는지다. warm-up 을 켠 배포와 끈 배포의 값을 비교하면 warm-up 이
+ * 실제 첫 요청들을 얼마나 빠르게 했는지 알 수 있다. limit 개를 넘은 뒤로는 아무것도 하지 않는다.
+ */
+public class FirstRequestLatencyInterceptor implements HandlerInterceptor {
+
+  private static final String START = FirstRequestLatencyInterceptor.class.getName() + ".START";
+  private static final String WARMED = FirstRequestLatencyInterceptor.class.getName() + ".WARMED";
+
+  private final int limit;
+  private final BooleanSupplier warmed;
+  private final MeterRegistry meterRegistry;
+  private final AtomicInteger started = new AtomicInteger();
+
+  public FirstRequestLatencyInterceptor(int limit, BooleanSupplier warmed,
+      MeterRegistry meterRegistry) {
+    this.limit = limit;
+    this.warmed = warmed;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    if (started.get() < limit && started.incrementAndGet() <= limit) {
+      request.setAttribute(WARMED, warmed.getAsBoolean());
+      request.setAttribute(START, System.nanoTime());
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    Long start = (Long) request.getAttribute(START);
+    if (start == null) {
+      return;
+    }
+    Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    Timer.builder("search.first.requests.latency")
+        .description("latency of the first search requests after startup")
+        .tag("uri", uri != null ? uri.toString() : request.getRequestURI())
+        .tag("warmed", String.valueOf(request.getAttribute(WARMED)))
+        .register(meterRegistry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.controller.support;
+
+import java.time.Duration;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+import study.querydsl.repository.support.QueryDeadline;
+
+/**
+ * X-Request-Timeout 헤더(ms)나 API 기본값으로 요청 마감 시각을 정한다. 헤더 값은 max 를 넘지 못하고,
+ * 숫자가 아니거나 0 이하이면 기본값을 쓴다.
+ * <p>
+ * 클라이언트가 자기 timeout 을 헤더로 보내면, 클라이언트가 포기하는 시점에 서버의 쿼리도 취소된다.
+ */
+public class RequestDeadlineInterceptor implements HandlerInterceptor {
+
+  public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+  private final Duration defaultBudget;
+  private final Duration maxBudget;
+
+  public RequestDeadlineInterceptor(Duration defaultBudget, Duration maxBudget) {
+    this.defaultBudget = defaultBudget;
+    this.maxBudget = maxBudget;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    QueryDeadline.start(budget(request.getHeader(TIMEOUT_HEADER)));
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    QueryDeadline.clear();
+  }
+
+  private Duration budget(String header) {
+    if (!StringUtils.hasText(header)) {
+      return defaultBudget;
+    }
+    long requested;
+    try {
+      requested = Long.parseLong(header.trim());
+    } catch (NumberFormatException e) {
+      return defaultBudget;
+    }
+    if (requested <= 0) {
+      return defaultBudget;
+    }
+    Duration budget = Duration.ofMillis(requested);
+    return budget.compareTo(maxBudget) > 0 ? maxBudget : budget;
+  }
+}
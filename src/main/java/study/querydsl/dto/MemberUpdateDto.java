@@ -0,0 +1,14 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * 회원 부분 수정. null 인 필드는 바꾸지 않는다.
+ */
+@Data
+public class MemberUpdateDto {
+
+  private Integer age;
+  private Long teamId;
+
+}
@@ -1,5 +1,6 @@
 package study.querydsl.entity;
 
+import java.time.LocalDateTime;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -8,11 +9,14 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Getter @Setter
@@ -30,6 +34,12 @@ public class Member {
   @JoinColumn(name = "team_id")
   private Team team;
 
+  /**
+   * 스냅샷 증분 export 용. JDBC 로 직접 넣은 행은 DB 기본값을 받는다. JPQL bulk update 는 직접 넣어야 한다.
+   */
+  @ColumnDefault("current_timestamp")
+  private LocalDateTime modifiedAt;
+
   public Member(String username) {
     this(username, 0);
   }
@@ -48,7 +58,12 @@ public class Member {
 
   private void changeTeam(Team team) {
     this.team = team;
-    team.getMembers().add(this);
+    team.addMember(this);
   }
 
+  @PrePersist
+  @PreUpdate
+  void touch() {
+    modifiedAt = LocalDateTime.now();
+  }
 }
@@ -0,0 +1,48 @@
+package study.querydsl.entity;
+
+import java.time.LocalDateTime;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Member / Team 변경 기록(outbox). 변경과 같은 트랜잭션에서 JDBC 로 넣고, 노드마다 id 순으로 읽어 간다.
+ * <p>
+ * aggregateId 가 null 이면 JPQL bulk update/delete 나 CSV import(BULK_INSERT)처럼 어떤 행이 바뀌었는지 모르는 변경이다.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_outbox_event_created_at", columnList = "createdAt"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class OutboxEvent {
+
+  public enum ChangeType {
+    INSERT, UPDATE, DELETE, BULK_INSERT, BULK_UPDATE, BULK_DELETE
+  }
+
+  @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  private String aggregate;
+  private Long aggregateId;
+
+  @Enumerated(EnumType.STRING)
+  private ChangeType changeType;
+
+  /**
+   * 쓴 노드. 자기 노드의 변경은 이미 반영했으므로 리스너가 건너뛸 수 있다.
+   */
+  private String origin;
+
+  private LocalDateTime createdAt;
+}
@@ -1,5 +1,6 @@
 package study.querydsl.entity;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.Entity;
@@ -7,11 +8,16 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
 
 @Entity
 @Getter @Setter
@@ -24,10 +30,39 @@ public class Team {
 
   private String name;
 
+  /**
+   * 스냅샷 증분 export 용. 팀 이름이 바뀌면 소속 회원 행도 다시 내보낸다.
+   */
+  @ColumnDefault("current_timestamp")
+  private LocalDateTime modifiedAt;
+
   @OneToMany(mappedBy = "team")
+  @LazyCollection(LazyCollectionOption.EXTRA)
   private List<Member> members = new ArrayList<>();
 
   public Team(String name) {
     this.name = name;
   }
+
+  /**
+   * members 는 mappedBy 쪽(연관관계의 주인이 아님)이고 순서 컬럼이 없는 bag 이므로,
+   * 초기화되지 않은 컬렉션에 add 하면 Hibernate 가 컬렉션을 읽지 않고 큐에 쌓아 둔다.
+   * getMembers().add 와 같은 동작이고, 양쪽을 맞추는 곳을 한 군데로 모으려고 둔 메서드다.
+   */
+  void addMember(Member member) {
+    members.add(member);
+  }
+
+  /**
+   * EXTRA lazy 이므로 컬렉션이 초기화되지 않았으면 count 쿼리로 센다.
+   */
+  public int getMemberCount() {
+    return members.size();
+  }
+
+  @PrePersist
+  @PreUpdate
+  void touch() {
+    modifiedAt = LocalDateTime.now();
+  }
 }
@@ -0,0 +1,162 @@
+package study.querydsl.export;
+
+import static study.querydsl.export.ColumnarSnapshotWriter.MAGIC;
+import static study.querydsl.export.ColumnarSnapshotWriter.VERSION;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * {@link ColumnarSnapshotWriter} 가 쓴 파일을 행 그룹 단위로 앞에서부터 읽는다.
+ */
+public class ColumnarSnapshotReader implements Closeable {
+
+  private final DataInputStream in;
+  private final Inflater inflater = new Inflater();
+  private final long snapshotAt;
+  private final long since;
+  private boolean finished;
+
+  public ColumnarSnapshotReader(InputStream source) throws IOException {
+    this.in = new DataInputStream(new BufferedInputStream(source));
+    byte[] magic = new byte[MAGIC.length];
+    in.readFully(magic);
+    if (!Arrays.equals(magic, MAGIC) || in.readByte() != VERSION) {
+      throw new IOException("Not a member snapshot file");
+    }
+    this.snapshotAt = in.readLong();
+    this.since = in.readLong();
+  }
+
+  public long getSnapshotAt() {
+    return snapshotAt;
+  }
+
+  /**
+   * 전체 스냅샷이면 -1.
+   */
+  public long getSince() {
+    return since;
+  }
+
+  /**
+   * 다음 행 그룹. 더 없으면 null.
+   */
+  public List<MemberTeamDto> nextGroup() throws IOException {
+    if (finished) {
+      return null;
+    }
+    if (in.readByte() == 0) {
+      finished = true;
+      return null;
+    }
+    int rows = in.readInt();
+    Decoder memberIds = column();
+    Decoder usernames = column();
+    Decoder ages = column();
+    Decoder teamIds = column();
+    Decoder teamNames = column();
+
+    int ageMin = (int) ages.readVarLong();
+    int ageWidth = ages.readByte();
+    int dictionarySize = (int) teamNames.readVarLong();
+    String[] dictionary = new String[dictionarySize + 1];
+    for (int i = 1; i <= dictionarySize; i++) {
+      dictionary[i] = teamNames.readString();
+    }
+
+    List<MemberTeamDto> group = new ArrayList<>(rows);
+    long memberId = 0;
+    for (int i = 0; i < rows; i++) {
+      memberId += memberIds.readVarLong();
+      long teamId = teamIds.readVarLong();
+      group.add(new MemberTeamDto(memberId, usernames.readString(),
+          ageMin + ages.readFixed(ageWidth), teamId == 0 ? null : teamId - 1,
+          dictionary[(int) teamNames.readVarLong()]));
+    }
+    return group;
+  }
+
+  @Override
+  public void close() throws IOException {
+    inflater.end();
+    in.close();
+  }
+
+  private Decoder column() throws IOException {
+    in.readByte();
+    int rawLength = in.readInt();
+    byte[] compressed = new byte[in.readInt()];
+    in.readFully(compressed);
+    byte[] raw = new byte[rawLength];
+    inflater.reset();
+    inflater.setInput(compressed);
+    try {
+      int read = 0;
+      while (read < rawLength) {
+        int n = inflater.inflate(raw, read, rawLength - read);
+        if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+          throw new IOException("Truncated column");
+        }
+        read += n;
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt column", e);
+    }
+    return new Decoder(raw);
+  }
+
+  private static class Decoder {
+
+    private final byte[] bytes;
+    private int position;
+
+    private Decoder(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    private int readByte() {
+      return bytes[position++];
+    }
+
+    private int readFixed(int width) {
+      int value = 0;
+      for (int i = 0; i < width; i++) {
+        value = (value << 8) | (bytes[position++] & 0xFF);
+      }
+      return value;
+    }
+
+    private long readVarLong() {
+      long v = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = bytes[position++];
+        v |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return (v >>> 1) ^ -(v & 1);
+    }
+
+    private String readString() {
+      int length = (int) readVarLong();
+      if (length < 0) {
+        return null;
+      }
+      String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return value;
+    }
+  }
+}
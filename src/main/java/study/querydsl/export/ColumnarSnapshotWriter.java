@@ -0,0 +1,312 @@
+package study.querydsl.export;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * 회원 스냅샷 파일 쓰기. 행을 rowGroupSize 개씩 모아 컬럼별로 인코딩하고 압축한다.
+ * <p>
+ * 파일 구조 (정수는 big-endian, v 는 zigzag varint):
+ * <pre>
+ * "MSNP" version(1) snapshotAt(8) since(8, 전체면 -1)
+ * row group* : 1(1) rows(4) column{5} : encoding(1) rawLength(4) compressedLength(4) deflate(bytes)
+ * footer     : 0(1) groups(4) rows(8) groupOffset(8)*
+ * footerLength(4) "MSNP"
+ * </pre>
+ * 컬럼 인코딩
+ * <ul>
+ *   <li>memberId: 앞 행과의 차이(delta) v. id 순으로 쓰므로 대부분 1바이트다</li>
+ *   <li>username: 길이 v + UTF-8 (null 은 길이 -1)</li>
+ *   <li>age: frame of reference. 그룹 최솟값 v, 폭(1/2/4), (age - 최솟값) 을 그 폭으로</li>
+ *   <li>teamId: v (null 은 0, 나머지는 teamId + 1)</li>
+ *   <li>teamName: 그룹 사전. 사전 크기 v, 이름들(길이 v + UTF-8), 행마다 사전 번호 v (null 은 0)</li>
+ * </ul>
+ * 행 그룹 단위로 읽을 수 있으므로 큰 파일도 한 그룹씩 처리하면 된다. 메모리는 그룹 하나만큼 쓴다.
+ */
+public class ColumnarSnapshotWriter implements Closeable {
+
+  static final byte[] MAGIC = "MSNP".getBytes(StandardCharsets.US_ASCII);
+  static final byte VERSION = 1;
+
+  static final byte PLAIN = 0;
+  static final byte DELTA = 1;
+  static final byte FRAME_OF_REFERENCE = 2;
+  static final byte DICTIONARY = 3;
+
+  private final CountingOutputStream counting;
+  private final DataOutputStream out;
+  private final int rowGroupSize;
+  private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+
+  private final long[] memberIds;
+  private final String[] usernames;
+  private final int[] ages;
+  private final Long[] teamIds;
+  private final String[] teamNames;
+  private int buffered;
+
+  private final List<Long> groupOffsets = new ArrayList<>();
+  private long rows;
+  private boolean closed;
+
+  public ColumnarSnapshotWriter(OutputStream target, long snapshotAt, long since, int rowGroupSize)
+      throws IOException {
+    this.counting = new CountingOutputStream(target);
+    this.out = new DataOutputStream(counting);
+    this.rowGroupSize = rowGroupSize;
+    this.memberIds = new long[rowGroupSize];
+    this.usernames = new String[rowGroupSize];
+    this.ages = new int[rowGroupSize];
+    this.teamIds = new Long[rowGroupSize];
+    this.teamNames = new String[rowGroupSize];
+    out.write(MAGIC);
+    out.writeByte(VERSION);
+    out.writeLong(snapshotAt);
+    out.writeLong(since);
+  }
+
+  public void write(long memberId, String username, int age, Long teamId, String teamName)
+      throws IOException {
+    memberIds[buffered] = memberId;
+    usernames[buffered] = username;
+    ages[buffered] = age;
+    teamIds[buffered] = teamId;
+    teamNames[buffered] = teamName;
+    buffered++;
+    rows++;
+    if (buffered == rowGroupSize) {
+      flushGroup();
+    }
+  }
+
+  public long getRows() {
+    return rows;
+  }
+
+  public long getBytesWritten() {
+    return counting.count;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      flushGroup();
+      long footerStart = counting.count;
+      out.writeByte(0);
+      out.writeInt(groupOffsets.size());
+      out.writeLong(rows);
+      for (long offset : groupOffsets) {
+        out.writeLong(offset);
+      }
+      out.writeInt((int) (counting.count - footerStart));
+      out.write(MAGIC);
+      out.flush();
+    } finally {
+      deflater.end();
+      out.close();
+    }
+  }
+
+  private void flushGroup() throws IOException {
+    if (buffered == 0) {
+      return;
+    }
+    groupOffsets.add(counting.count);
+    out.writeByte(1);
+    out.writeInt(buffered);
+
+    VarBuffer column = new VarBuffer(buffered * 2);
+    long previous = 0;
+    for (int i = 0; i < buffered; i++) {
+      column.writeVarLong(memberIds[i] - previous);
+      previous = memberIds[i];
+    }
+    writeColumn(DELTA, column);
+
+    column = new VarBuffer(buffered * 12);
+    for (int i = 0; i < buffered; i++) {
+      column.writeString(usernames[i]);
+    }
+    writeColumn(PLAIN, column);
+
+    writeColumn(FRAME_OF_REFERENCE, encodeAges());
+
+    column = new VarBuffer(buffered * 2);
+    for (int i = 0; i < buffered; i++) {
+      column.writeVarLong(teamIds[i] == null ? 0 : teamIds[i] + 1);
+    }
+    writeColumn(PLAIN, column);
+
+    writeColumn(DICTIONARY, encodeTeamNames());
+
+    for (int i = 0; i < buffered; i++) {
+      usernames[i] = null;
+      teamIds[i] = null;
+      teamNames[i] = null;
+    }
+    buffered = 0;
+  }
+
+  private VarBuffer encodeAges() {
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (int i = 0; i < buffered; i++) {
+      min = Math.min(min, ages[i]);
+      max = Math.max(max, ages[i]);
+    }
+    long range = (long) max - min;
+    int width = range < (1 << 8) ? 1 : range < (1 << 16) ? 2 : 4;
+    VarBuffer column = new VarBuffer(buffered * width + 8);
+    column.writeVarLong(min);
+    column.writeByte(width);
+    for (int i = 0; i < buffered; i++) {
+      column.writeFixed(ages[i] - min, width);
+    }
+    return column;
+  }
+
+  private VarBuffer encodeTeamNames() {
+    Map<String, Integer> dictionary = new HashMap<>();
+    List<String> names = new ArrayList<>();
+    int[] indexes = new int[buffered];
+    for (int i = 0; i < buffered; i++) {
+      String name = teamNames[i];
+      if (name == null) {
+        continue;
+      }
+      Integer index = dictionary.get(name);
+      if (index == null) {
+        index = names.size() + 1;
+        dictionary.put(name, index);
+        names.add(name);
+      }
+      indexes[i] = index;
+    }
+    VarBuffer column = new VarBuffer(names.size() * 12 + buffered);
+    column.writeVarLong(names.size());
+    for (String name : names) {
+      column.writeString(name);
+    }
+    for (int i = 0; i < buffered; i++) {
+      column.writeVarLong(indexes[i]);
+    }
+    return column;
+  }
+
+  private void writeColumn(byte encoding, VarBuffer column) throws IOException {
+    deflater.reset();
+    deflater.setInput(column.bytes, 0, column.length);
+    deflater.finish();
+    byte[] compressed = new byte[Math.max(64, column.length + column.length / 16 + 64)];
+    int compressedLength = 0;
+    while (!deflater.finished()) {
+      if (compressedLength == compressed.length) {
+        byte[] grown = new byte[compressed.length * 2];
+        System.arraycopy(compressed, 0, grown, 0, compressedLength);
+        compressed = grown;
+      }
+      compressedLength += deflater.deflate(compressed, compressedLength,
+          compressed.length - compressedLength);
+    }
+    out.writeByte(encoding);
+    out.writeInt(column.length);
+    out.writeInt(compressedLength);
+    out.write(compressed, 0, compressedLength);
+  }
+
+  static class VarBuffer {
+
+    private byte[] bytes;
+    private int length;
+
+    VarBuffer(int capacity) {
+      this.bytes = new byte[Math.max(16, capacity)];
+    }
+
+    void writeByte(int value) {
+      ensure(1);
+      bytes[length++] = (byte) value;
+    }
+
+    void writeFixed(int value, int width) {
+      ensure(width);
+      for (int shift = (width - 1) * 8; shift >= 0; shift -= 8) {
+        bytes[length++] = (byte) (value >>> shift);
+      }
+    }
+
+    void writeVarLong(long value) {
+      long v = (value << 1) ^ (value >> 63);
+      ensure(10);
+      while ((v & ~0x7FL) != 0) {
+        bytes[length++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      bytes[length++] = (byte) v;
+    }
+
+    void writeString(String value) {
+      if (value == null) {
+        writeVarLong(-1);
+        return;
+      }
+      byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      writeVarLong(utf8.length);
+      ensure(utf8.length);
+      System.arraycopy(utf8, 0, bytes, length, utf8.length);
+      length += utf8.length;
+    }
+
+    private void ensure(int extra) {
+      if (length + extra > bytes.length) {
+        byte[] grown = new byte[Math.max(bytes.length * 2, length + extra)];
+        System.arraycopy(bytes, 0, grown, 0, length);
+        bytes = grown;
+      }
+    }
+  }
+
+  private static class CountingOutputStream extends OutputStream {
+
+    private final OutputStream target;
+    private long count;
+
+    private CountingOutputStream(OutputStream target) {
+      this.target = target;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      target.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      target.write(b, off, len);
+      count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      target.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      target.close();
+    }
+  }
+}
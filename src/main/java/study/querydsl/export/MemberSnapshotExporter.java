@@ -0,0 +1,126 @@
+package study.querydsl.export;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import javax.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+/**
+ * member x team 을 컬럼형 스냅샷 파일({@link ColumnarSnapshotWriter})로 내보낸다.
+ * <p>
+ * StatelessSession 의 forward-only 커서로 읽으므로 영속성 컨텍스트에 엔티티가 쌓이지 않고, 메모리는 행 그룹 하나만큼 쓴다.
+ * 임시 파일에 다 쓴 뒤 옮기므로 중간에 실패해도 target 에 반쪽 파일이 남지 않는다.
+ * <p>
+ * 증분 export 는 이전 스냅샷 파일의 snapshotAt 에서 overlap 을 뺀 시각 이후에 바뀐 회원(또는 소속 팀)만 내보낸다.
+ * 받는 쪽은 memberId 로 덮어쓴다.
+ * modifiedAt 은 커밋이 아니라 flush 시각이다. snapshotAt 전에 flush 하고 이전 export 가 읽기 시작한 뒤에 커밋한 트랜잭션은
+ * 이전 스냅샷에 없고 modifiedAt 도 snapshotAt 보다 앞이다. 그래서 가장 긴 트랜잭션보다 긴 overlap 만큼 겹쳐 읽는다.
+ * 트랜잭션이 overlap 보다 짧으면 행이 빠지지 않는다. 겹친 구간의 행은 두 번 나올 수 있다.
+ * 삭제와 JPQL bulk update 는 modifiedAt 에 남지 않으므로 증분에 나오지 않는다. 주기적으로 전체 스냅샷을 떠야 한다.
+ */
+@Slf4j
+public class MemberSnapshotExporter {
+
+  private final SessionFactory sessionFactory;
+  private final int rowGroupSize;
+  private final int fetchSize;
+  private final long overlapMillis;
+
+  public MemberSnapshotExporter(EntityManagerFactory entityManagerFactory, int rowGroupSize,
+      int fetchSize, long overlapMillis) {
+    this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    this.rowGroupSize = rowGroupSize;
+    this.fetchSize = fetchSize;
+    this.overlapMillis = overlapMillis;
+  }
+
+  public SnapshotResult exportFull(Path target) {
+    return export(target, -1);
+  }
+
+  public SnapshotResult exportSince(Path target, Path previous) {
+    try (InputStream in = Files.newInputStream(previous);
+        ColumnarSnapshotReader reader = new ColumnarSnapshotReader(in)) {
+      return export(target, reader.getSnapshotAt());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private SnapshotResult export(Path target, long since) {
+    long started = System.nanoTime();
+    long snapshotAt = System.currentTimeMillis();
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    StatelessSession session = sessionFactory.openStatelessSession();
+    Transaction transaction = session.beginTransaction();
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16);
+        ColumnarSnapshotWriter writer = new ColumnarSnapshotWriter(out, snapshotAt, since, rowGroupSize)) {
+      HibernateQuery<?> query = new HibernateQuery<Void>(session)
+          .select(member.id, member.username, member.age, team.id, team.name)
+          .from(member)
+          .leftJoin(member.team, team)
+          .where(changedSince(since))
+          .orderBy(member.id.asc())
+          .setFetchSize(fetchSize)
+          .setReadOnly(true);
+      try (ScrollableResults rows = query.scroll(ScrollMode.FORWARD_ONLY)) {
+        while (rows.next()) {
+          Object[] row = rows.get();
+          writer.write((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3],
+              (String) row[4]);
+        }
+      }
+      writer.close();
+      transaction.commit();
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      SnapshotResult result = new SnapshotResult(target, writer.getRows(), writer.getBytesWritten(),
+          snapshotAt, since, System.nanoTime() - started);
+      log.info("{}", result);
+      return result;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+      session.close();
+      deleteQuietly(temp);
+    }
+  }
+
+  private BooleanExpression changedSince(long since) {
+    if (since < 0) {
+      return null;
+    }
+    LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(since - overlapMillis),
+        ZoneId.systemDefault());
+    return member.modifiedAt.after(time).or(team.modifiedAt.after(time));
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      log.debug("failed to delete {}", path, e);
+    }
+  }
+}
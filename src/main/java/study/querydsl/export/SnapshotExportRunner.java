@@ -0,0 +1,44 @@
+package study.querydsl.export;
+
+import java.nio.file.Path;
+import javax.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * app.export.enabled=true 이면 기동 시 app.export.target 으로 스냅샷을 내보낸다 (./gradlew exportSnapshot).
+ * app.export.previous 가 있으면 그 스냅샷 이후 바뀐 행만 내보낸다.
+ */
+@Component
+@ConditionalOnProperty(name = "app.export.enabled", havingValue = "true")
+public class SnapshotExportRunner implements ApplicationRunner {
+
+  private final MemberSnapshotExporter exporter;
+  private final String target;
+  private final String previous;
+
+  public SnapshotExportRunner(EntityManagerFactory entityManagerFactory,
+      @Value("${app.export.target}") String target,
+      @Value("${app.export.previous:}") String previous,
+      @Value("${app.export.row-group-size:65536}") int rowGroupSize,
+      @Value("${app.export.fetch-size:1000}") int fetchSize,
+      @Value("${app.export.overlap-ms:600000}") long overlapMillis) {
+    this.exporter = new MemberSnapshotExporter(entityManagerFactory, rowGroupSize, fetchSize,
+        overlapMillis);
+    this.target = target;
+    this.previous = previous;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (StringUtils.hasText(previous)) {
+      exporter.exportSince(Path.of(target), Path.of(previous));
+    } else {
+      exporter.exportFull(Path.of(target));
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.export;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import lombok.Value;
+
+@Value
+public class SnapshotResult {
+
+  Path file;
+  long rows;
+  long bytes;
+  long snapshotAt;
+  long since;
+  long elapsedNanos;
+
+  public boolean isIncremental() {
+    return since >= 0;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s snapshot %s: %d rows, %.1f MB in %d ms", isIncremental() ? "incremental" : "full",
+        file, rows, bytes / (1024.0 * 1024), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+  }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.importer;
+
+import java.nio.file.Path;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.repository.outbox.OutboxWriter;
+
+/**
+ * app.import.enabled=true 이면 기동 시 app.import.teams, app.import.members 파일을 순서대로 넣는다 (./gradlew importCsv).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.import.enabled", havingValue = "true")
+public class CsvImportRunner implements ApplicationRunner {
+
+  private final CsvImporter importer;
+  private final String teams;
+  private final String members;
+
+  public CsvImportRunner(DataSource dataSource, ObjectProvider<OutboxWriter> outboxWriter,
+      @Value("${app.import.teams:}") String teams,
+      @Value("${app.import.members:}") String members,
+      @Value("${app.import.parallelism:4}") int parallelism,
+      @Value("${app.import.batch-size:1000}") int batchSize,
+      @Value("${app.import.chunk-mb:64}") int chunkMegabytes,
+      @Value("${app.import.progress-interval-ms:5000}") long progressIntervalMillis) {
+    this.importer = new CsvImporter(dataSource, outboxWriter.getIfAvailable(), parallelism,
+        batchSize, chunkMegabytes * 1024L * 1024L, progressIntervalMillis);
+    this.teams = teams;
+    this.members = members;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (StringUtils.hasText(teams)) {
+      importer.importTeams(Path.of(teams));
+    }
+    if (StringUtils.hasText(members)) {
+      importer.importMembers(Path.of(members));
+    }
+  }
+}
@@ -0,0 +1,344 @@
+package study.querydsl.importer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.OutboxEvent.ChangeType;
+import study.querydsl.repository.outbox.OutboxWriter;
+
+/**
+ * 팀 / 회원 CSV 를 JDBC batch 로 넣는다.
+ * <p>
+ * 파일을 chunkBytes 크기의 줄 단위 조각으로 나누고, 조각마다 memory-mapped 로 읽어 parallelism 개 스레드가 각자의 커넥션으로 넣는다.
+ * 한 번에 매핑하는 것은 조각 하나이고 힙에는 한 줄 버퍼와 batch 하나만 있으므로, 메모리 사용량은 파일 크기와 상관없다.
+ * batch 마다 커밋하므로 중간에 실패하면 그때까지 넣은 행은 남는다.
+ * <p>
+ * 형식은 따옴표 없는 UTF-8 CSV 이고 첫 줄은 헤더로 건너뛴다.
+ * <ul>
+ *   <li>팀: {@code name}</li>
+ *   <li>회원: {@code username,age,teamName} (teamName 은 비워 둘 수 있다)</li>
+ * </ul>
+ * 형식이 맞지 않는 줄은 건너뛰고 rejected 로 센다.
+ * <p>
+ * JDBC 로 넣으므로 엔티티 이벤트가 없다. outboxWriter 가 있으면(app.outbox.enabled=true) 회원 batch 와 팀 생성마다
+ * 같은 트랜잭션에 BULK_INSERT 를 남겨서 각 노드의 TableVersions, 페이지 캐시, UsernameFilter 가 따라오게 한다.
+ */
+@Slf4j
+public class CsvImporter {
+
+  private static final int MAX_LINE_BYTES = 64 * 1024;
+  private static final int MAX_LOGGED_REJECTS = 10;
+
+  private final DataSource dataSource;
+  private final OutboxWriter outboxWriter;
+  private final TeamIdCache teamIds;
+  private final int parallelism;
+  private final int batchSize;
+  private final long chunkBytes;
+  private final long progressIntervalMillis;
+
+  public CsvImporter(DataSource dataSource, int parallelism, int batchSize, long chunkBytes,
+      long progressIntervalMillis) {
+    this(dataSource, null, parallelism, batchSize, chunkBytes, progressIntervalMillis);
+  }
+
+  /**
+   * outboxWriter 는 null 이어도 된다.
+   */
+  public CsvImporter(DataSource dataSource, OutboxWriter outboxWriter, int parallelism,
+      int batchSize, long chunkBytes, long progressIntervalMillis) {
+    if (chunkBytes > Integer.MAX_VALUE - MAX_LINE_BYTES) {
+      throw new IllegalArgumentException("chunkBytes too large: " + chunkBytes);
+    }
+    this.dataSource = dataSource;
+    this.outboxWriter = outboxWriter;
+    this.teamIds = new TeamIdCache(dataSource, outboxWriter);
+    this.parallelism = parallelism;
+    this.batchSize = batchSize;
+    this.chunkBytes = chunkBytes;
+    this.progressIntervalMillis = progressIntervalMillis;
+  }
+
+  /**
+   * 이미 있는 이름은 건너뛴다.
+   */
+  public ImportResult importTeams(Path file) {
+    return run("teams", file, connection -> new RowWriter() {
+      @Override
+      public boolean write(String[] fields) {
+        if (fields.length != 1 || fields[0].isEmpty()) {
+          return false;
+        }
+        teamIds.resolve(connection, fields[0]);
+        return true;
+      }
+
+      @Override
+      public void flush() {
+      }
+    });
+  }
+
+  /**
+   * 팀 이름은 캐시로 id 를 찾고, 없는 팀은 만든다.
+   */
+  public ImportResult importMembers(Path file) {
+    return run("members", file, connection -> new MemberWriter(connection,
+        connection.prepareStatement("insert into member (username, age, team_id) values (?, ?, ?)")));
+  }
+
+  private ImportResult run(String label, Path file, WriterFactory writerFactory) {
+    long started = System.nanoTime();
+    teamIds.load();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      Progress progress = new Progress(label, size);
+      ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "csv-import-progress");
+        thread.setDaemon(true);
+        return thread;
+      });
+      reporter.scheduleAtFixedRate(progress::log, progressIntervalMillis, progressIntervalMillis,
+          TimeUnit.MILLISECONDS);
+      ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+      try {
+        List<Future<?>> chunks = new ArrayList<>();
+        for (long[] chunk : split(channel, size)) {
+          chunks.add(workers.submit(() -> {
+            importChunk(channel, chunk[0], chunk[1], writerFactory, progress);
+            return null;
+          }));
+        }
+        for (Future<?> chunk : chunks) {
+          chunk.get();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("CSV import interrupted: " + file, e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("CSV import failed: " + file, e.getCause());
+      } finally {
+        workers.shutdownNow();
+        reporter.shutdownNow();
+      }
+      ImportResult result = new ImportResult(label, progress.rows.get(), progress.rejected.get(),
+          size, System.nanoTime() - started);
+      log.info("{}", result);
+      return result;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * [start, end) 조각들. 경계는 줄바꿈 바로 다음이다.
+   */
+  private List<long[]> split(FileChannel channel, long size) throws IOException {
+    List<long[]> chunks = new ArrayList<>();
+    ByteBuffer probe = ByteBuffer.allocate(4096);
+    long start = 0;
+    while (start < size) {
+      long end = Math.min(size, start + chunkBytes);
+      while (end < size) {
+        probe.clear();
+        int read = channel.read(probe, end);
+        int newline = -1;
+        for (int i = 0; i < read; i++) {
+          if (probe.get(i) == '\n') {
+            newline = i;
+            break;
+          }
+        }
+        if (newline >= 0) {
+          end += newline + 1;
+          break;
+        }
+        end += read;
+      }
+      chunks.add(new long[]{start, end});
+      start = end;
+    }
+    return chunks;
+  }
+
+  private void importChunk(FileChannel channel, long start, long end, WriterFactory writerFactory,
+      Progress progress) throws IOException, SQLException {
+    MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, start, end - start);
+    byte[] line = new byte[MAX_LINE_BYTES];
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      RowWriter writer = writerFactory.open(connection);
+      int limit = buffer.limit();
+      int lineStart = 0;
+      int pending = 0;
+      long reported = 0;
+      boolean header = start == 0;
+      for (int i = 0; i <= limit; i++) {
+        if (i < limit && buffer.get(i) != '\n') {
+          continue;
+        }
+        int length = i - lineStart;
+        if (length > 0 && buffer.get(lineStart + length - 1) == '\r') {
+          length--;
+        }
+        if (header) {
+          header = false;
+        } else if (length > 0) {
+          if (length > MAX_LINE_BYTES) {
+            progress.reject(start + lineStart, "line too long");
+          } else {
+            buffer.get(lineStart, line, 0, length);
+            String[] fields = fields(line, length);
+            if (writer.write(fields)) {
+              pending++;
+            } else {
+              progress.reject(start + lineStart, new String(line, 0, length, StandardCharsets.UTF_8));
+            }
+          }
+        }
+        lineStart = i + 1;
+        if (pending == batchSize) {
+          writer.flush();
+          connection.commit();
+          progress.advance(pending, Math.min(lineStart, limit) - reported);
+          reported = Math.min(lineStart, limit);
+          pending = 0;
+        }
+      }
+      writer.flush();
+      connection.commit();
+      progress.advance(pending, limit - reported);
+    }
+  }
+
+  private static String[] fields(byte[] line, int length) {
+    int count = 1;
+    for (int i = 0; i < length; i++) {
+      if (line[i] == ',') {
+        count++;
+      }
+    }
+    String[] fields = new String[count];
+    int field = 0;
+    int fieldStart = 0;
+    for (int i = 0; i <= length; i++) {
+      if (i == length || line[i] == ',') {
+        fields[field++] = new String(line, fieldStart, i - fieldStart, StandardCharsets.UTF_8).trim();
+        fieldStart = i + 1;
+      }
+    }
+    return fields;
+  }
+
+  private interface WriterFactory {
+
+    RowWriter open(Connection connection) throws SQLException;
+  }
+
+  private interface RowWriter {
+
+    /**
+     * 형식이 맞지 않으면 false.
+     */
+    boolean write(String[] fields) throws SQLException;
+
+    void flush() throws SQLException;
+  }
+
+  private class MemberWriter implements RowWriter {
+
+    private final Connection connection;
+    private final PreparedStatement insert;
+
+    private MemberWriter(Connection connection, PreparedStatement insert) {
+      this.connection = connection;
+      this.insert = insert;
+    }
+
+    @Override
+    public boolean write(String[] fields) throws SQLException {
+      if (fields.length < 2 || fields.length > 3 || fields[0].isEmpty()) {
+        return false;
+      }
+      int age;
+      try {
+        age = Integer.parseInt(fields[1]);
+      } catch (NumberFormatException e) {
+        return false;
+      }
+      insert.setString(1, fields[0]);
+      insert.setInt(2, age);
+      if (fields.length == 3 && !fields[2].isEmpty()) {
+        insert.setLong(3, teamIds.resolve(connection, fields[2]));
+      } else {
+        insert.setNull(3, Types.BIGINT);
+      }
+      insert.addBatch();
+      return true;
+    }
+
+    @Override
+    public void flush() throws SQLException {
+      if (insert.executeBatch().length > 0 && outboxWriter != null) {
+        outboxWriter.recordBulk(connection, Member.class, ChangeType.BULK_INSERT);
+      }
+    }
+  }
+
+  private class Progress {
+
+    private final String label;
+    private final long totalBytes;
+    private final long started = System.nanoTime();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    private Progress(String label, long totalBytes) {
+      this.label = label;
+      this.totalBytes = totalBytes;
+    }
+
+    private void advance(long rowCount, long byteCount) {
+      rows.addAndGet(rowCount);
+      bytes.addAndGet(byteCount);
+    }
+
+    private void reject(long offset, String reason) {
+      if (rejected.incrementAndGet() <= MAX_LOGGED_REJECTS) {
+        log.warn("{}: skipped line at byte {}: {}", label, offset, reason);
+      }
+    }
+
+    private void log() {
+      double seconds = Math.max(1e-9, (System.nanoTime() - started) / 1e9);
+      long done = bytes.get();
+      log.info("{}: {}% {} rows, {} rejected, {} rows/s, {} MB/s", label,
+          String.format("%.1f", totalBytes == 0 ? 100.0 : done * 100.0 / totalBytes),
+          rows.get(), rejected.get(), Math.round(rows.get() / seconds),
+          String.format("%.1f", done / seconds / (1024 * 1024)));
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.importer;
+
+import java.util.concurrent.TimeUnit;
+import lombok.Value;
+
+@Value
+public class ImportResult {
+
+  String label;
+  long rows;
+  long rejected;
+  long bytes;
+  long elapsedNanos;
+
+  public double getRowsPerSecond() {
+    return rows / Math.max(1e-9, elapsedNanos / 1e9);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: %d rows, %d rejected, %.1f MB in %d ms (%.0f rows/s)", label, rows,
+        rejected, bytes / (1024.0 * 1024), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+        getRowsPerSecond());
+  }
+}
@@ -0,0 +1,100 @@
+package study.querydsl.importer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.sql.DataSource;
+import org.springframework.dao.DataAccessResourceFailureException;
+import study.querydsl.entity.OutboxEvent.ChangeType;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.outbox.OutboxWriter;
+
+/**
+ * 팀 이름 -> id. import 를 시작할 때 team 테이블 전체를 읽어 두고, 없는 이름은 팀을 만들어 넣는다.
+ * <p>
+ * 팀 생성은 부르는 worker 의 커넥션에서 하고 바로 커밋한다. worker 는 회원 batch 를 executeBatch 직후에 커밋하므로
+ * 이 시점에 커넥션에 커밋되지 않은 행이 없고, 팀만 따로 커밋된다. 커넥션을 하나 더 빌리지 않으므로
+ * parallelism 이 커넥션 풀 크기와 같아도 막히지 않는다.
+ * 같은 이름으로 동시에 들어오면 먼저 온 worker 만 만들고 나머지는 그 결과를 기다린다. 맵의 잠금을 잡은 채로 DB 에 가지 않는다.
+ * 팀 이름이 DB 에서 유일하다고 가정한다.
+ * outboxWriter 가 있으면 팀 생성과 같은 트랜잭션에 Team BULK_INSERT 를 남긴다.
+ */
+class TeamIdCache {
+
+  private final DataSource dataSource;
+  private final OutboxWriter outboxWriter;
+  private final ConcurrentMap<String, CompletableFuture<Long>> ids = new ConcurrentHashMap<>();
+  private volatile boolean loaded;
+
+  TeamIdCache(DataSource dataSource, OutboxWriter outboxWriter) {
+    this.dataSource = dataSource;
+    this.outboxWriter = outboxWriter;
+  }
+
+  /**
+   * worker 를 시작하기 전에 부른다.
+   */
+  synchronized void load() {
+    if (loaded) {
+      return;
+    }
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("select id, name from team")) {
+      while (rs.next()) {
+        ids.putIfAbsent(rs.getString(2), CompletableFuture.completedFuture(rs.getLong(1)));
+      }
+    } catch (SQLException e) {
+      throw new DataAccessResourceFailureException("Failed to load teams", e);
+    }
+    loaded = true;
+  }
+
+  long resolve(Connection connection, String name) {
+    CompletableFuture<Long> id = ids.get(name);
+    if (id == null) {
+      CompletableFuture<Long> created = new CompletableFuture<>();
+      id = ids.putIfAbsent(name, created);
+      if (id == null) {
+        id = created;
+        try {
+          created.complete(insert(connection, outboxWriter, name));
+        } catch (RuntimeException e) {
+          ids.remove(name, created);
+          created.completeExceptionally(e);
+        }
+      }
+    }
+    try {
+      return id.join();
+    } catch (CompletionException e) {
+      throw (RuntimeException) e.getCause();
+    }
+  }
+
+  private static Long insert(Connection connection, OutboxWriter outboxWriter, String name) {
+    try (PreparedStatement statement = connection.prepareStatement(
+        "insert into team (name) values (?)", Statement.RETURN_GENERATED_KEYS)) {
+      statement.setString(1, name);
+      statement.executeUpdate();
+      long id;
+      try (ResultSet keys = statement.getGeneratedKeys()) {
+        keys.next();
+        id = keys.getLong(1);
+      }
+      if (outboxWriter != null) {
+        outboxWriter.recordBulk(connection, Team.class, ChangeType.BULK_INSERT);
+      }
+      connection.commit();
+      return id;
+    } catch (SQLException e) {
+      throw new DataAccessResourceFailureException("Failed to create team " + name, e);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import lombok.Value;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.QueryDeadline;
+import study.querydsl.repository.support.RecordingJPAQuery;
+
+/**
+ * 여러 MemberSearchCondition 을 한 번의 쿼리로 조회하고, 조건별 결과로 다시 나눈다.
+ * <p>
+ * teamName(없으면 username) 만 다르고 나머지 값이 같은 조건끼리는 IN 한 개로 합치고, 묶음끼리는 OR 로 잇는다.
+ * 읽은 행은 조건마다 다시 검사해서 나누므로 여러 조건에 걸리는 회원은 각 결과에 모두 들어간다.
+ * 조건별 결과는 {@link MemberSearchQuery} 와 같이 member id 순이다.
+ */
+final class MemberBatchSearchQuery {
+
+  private static final int TEAM_NAME_IN = 1;
+  private static final int USERNAME_IN = 2;
+  private static final int NO_IN = 3;
+
+  private MemberBatchSearchQuery() {
+  }
+
+  static List<List<MemberTeamDto>> search(EntityManager em, List<MemberSearchCondition> conditions) {
+    Map<Criteria, List<MemberTeamDto>> results = new LinkedHashMap<>();
+    for (MemberSearchCondition condition : conditions) {
+      results.putIfAbsent(Criteria.of(condition), new ArrayList<>());
+    }
+    if (results.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    List<MemberTeamDto> rows = QueryDeadline.apply(new RecordingJPAQuery<>(em)
+            .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name)), em)
+        .from(member)
+        .leftJoin(member.team, team)
+        .where(merge(results.keySet()))
+        .orderBy(member.id.asc())
+        .fetch();
+
+    for (MemberTeamDto row : rows) {
+      for (Map.Entry<Criteria, List<MemberTeamDto>> entry : results.entrySet()) {
+        if (entry.getKey().matches(row)) {
+          entry.getValue().add(row);
+        }
+      }
+    }
+
+    List<List<MemberTeamDto>> result = new ArrayList<>(conditions.size());
+    for (MemberSearchCondition condition : conditions) {
+      result.add(results.get(Criteria.of(condition)));
+    }
+    return result;
+  }
+
+  private static Predicate merge(Set<Criteria> criteria) {
+    Map<List<Object>, Set<String>> groups = new LinkedHashMap<>();
+    for (Criteria c : criteria) {
+      if (c.teamName != null) {
+        groups.computeIfAbsent(Arrays.asList(TEAM_NAME_IN, c.username, c.ageGoe, c.ageLoe),
+            key -> new LinkedHashSet<>()).add(c.teamName);
+      } else if (c.username != null) {
+        groups.computeIfAbsent(Arrays.asList(USERNAME_IN, null, c.ageGoe, c.ageLoe),
+            key -> new LinkedHashSet<>()).add(c.username);
+      } else {
+        groups.computeIfAbsent(Arrays.asList(NO_IN, null, c.ageGoe, c.ageLoe),
+            key -> new LinkedHashSet<>());
+      }
+    }
+
+    List<Predicate> merged = new ArrayList<>(groups.size());
+    for (Map.Entry<List<Object>, Set<String>> group : groups.entrySet()) {
+      List<Object> key = group.getKey();
+      int kind = (Integer) key.get(0);
+      String username = (String) key.get(1);
+      Integer ageGoe = (Integer) key.get(2);
+      Integer ageLoe = (Integer) key.get(3);
+      Predicate predicate = ExpressionUtils.allOf(
+          kind == TEAM_NAME_IN ? team.name.in(group.getValue()) : null,
+          kind == USERNAME_IN ? member.username.in(group.getValue()) : null,
+          username != null ? member.username.eq(username) : null,
+          ageGoe != null ? member.age.goe(ageGoe) : null,
+          ageLoe != null ? member.age.loe(ageLoe) : null);
+      if (predicate == null) {
+        // 조건이 없는 검색이 하나라도 있으면 전체를 읽는다.
+        return null;
+      }
+      merged.add(predicate);
+    }
+    return ExpressionUtils.anyOf(merged);
+  }
+
+  /**
+   * 빈 문자열을 null 로 바꾼 조건. 같은 조건은 한 번만 조회한다.
+   */
+  @Value
+  private static class Criteria {
+
+    String username;
+    String teamName;
+    Integer ageGoe;
+    Integer ageLoe;
+
+    static Criteria of(MemberSearchCondition condition) {
+      return new Criteria(
+          StringUtils.isEmpty(condition.getUsername()) ? null : condition.getUsername(),
+          StringUtils.isEmpty(condition.getTeamName()) ? null : condition.getTeamName(),
+          condition.getAgeGoe(), condition.getAgeLoe());
+    }
+
+    boolean matches(MemberTeamDto row) {
+      return (username == null || username.equals(row.getUsername()))
+          && (teamName == null || teamName.equals(row.getTeamName()))
+          && (ageGoe == null || row.getAge() >= ageGoe)
+          && (ageLoe == null || row.getAge() <= ageLoe);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.types.Expression;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Function;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * 회원 검색에서 클라이언트가 고를 수 있는 컬럼({@code fields=memberId,username}).
+ * <p>
+ * 이름은 MemberTeamDto 의 프로퍼티 이름과 같다. teamId 는 member.team_id 외래 키 컬럼이므로 team 조인이 필요 없다.
+ */
+public enum MemberField {
+
+  MEMBER_ID("memberId", member.id, MemberTeamDto::getMemberId),
+  USERNAME("username", member.username, MemberTeamDto::getUsername),
+  AGE("age", member.age, MemberTeamDto::getAge),
+  TEAM_ID("teamId", member.team.id, MemberTeamDto::getTeamId),
+  TEAM_NAME("teamName", team.name, MemberTeamDto::getTeamName);
+
+  private final String fieldName;
+  private final Expression<?> expression;
+  private final Function<MemberTeamDto, Object> getter;
+
+  MemberField(String fieldName, Expression<?> expression, Function<MemberTeamDto, Object> getter) {
+    this.fieldName = fieldName;
+    this.expression = expression;
+    this.getter = getter;
+  }
+
+  public String getFieldName() {
+    return fieldName;
+  }
+
+  Expression<?> getExpression() {
+    return expression;
+  }
+
+  Object valueOf(MemberTeamDto dto) {
+    return getter.apply(dto);
+  }
+
+  /**
+   * 알 수 없는 이름이면 IllegalArgumentException. 비어 있으면 전체 컬럼.
+   */
+  public static Set<MemberField> parse(Collection<String> names) {
+    Set<MemberField> fields = EnumSet.noneOf(MemberField.class);
+    for (String name : names) {
+      if (!name.isBlank()) {
+        fields.add(of(name.trim()));
+      }
+    }
+    return fields.isEmpty() ? EnumSet.allOf(MemberField.class) : fields;
+  }
+
+  public static MemberField of(String fieldName) {
+    for (MemberField field : values()) {
+      if (field.fieldName.equals(fieldName)) {
+        return field;
+      }
+    }
+    throw new IllegalArgumentException("Unknown member field: " + fieldName);
+  }
+}
@@ -5,30 +5,49 @@ import static study.querydsl.entity.QTeam.team;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import javax.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.OutboxEvent.ChangeType;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.repository.outbox.OutboxWriter;
+import study.querydsl.repository.support.QueryDeadline;
+import study.querydsl.repository.support.QueryEvents;
+import study.querydsl.repository.support.RecordingJPAQueryFactory;
 
 @Repository
 public class MemberJpaRepository {
 
+  private static final String FIND_ALL_JPQL = "select m from Member m";
+  private static final String FIND_BY_USERNAME_JPQL =
+      "select m from Member m where m.username = :username";
+
   private final EntityManager em;
   private final JPAQueryFactory queryFactory;
-
-  public MemberJpaRepository(EntityManager em) {
+  private final UsernameFilter usernameFilter;
+  private final OutboxWriter outboxWriter;
+
+  /**
+   * usernameFilter 는 app.username-filter.enabled=true, outboxWriter 는 app.outbox.enabled=true 일 때만 있다.
+   */
+  public MemberJpaRepository(EntityManager em, ObjectProvider<UsernameFilter> usernameFilter,
+      ObjectProvider<OutboxWriter> outboxWriter) {
     this.em = em;
-    this.queryFactory = new JPAQueryFactory(em);
+    this.queryFactory = new RecordingJPAQueryFactory(em);
+    this.usernameFilter = usernameFilter.getIfAvailable();
+    this.outboxWriter = outboxWriter.getIfAvailable();
   }
 
   public void save(Member member) {
@@ -41,26 +60,72 @@ public class MemberJpaRepository {
   }
 
   public List<Member> findAll() {
-    return em.createQuery("select m from Member m", Member.class)
-        .getResultList();
+    return QueryEvents.list("list", FIND_ALL_JPQL, "",
+        () -> em.createQuery(FIND_ALL_JPQL, Member.class));
   }
 
   public List<Member> findAll_QueryDsl() {
-    return queryFactory
-        .selectFrom(member)
+    return QueryDeadline.apply(queryFactory.selectFrom(member), em)
         .fetch();
   }
 
   public List<Member> findByUsername(String username) {
-    return em.createQuery("select m from Member m where m.username = :username", Member.class)
-        .setParameter("username", username)
-        .getResultList();
+    if (usernameFilter != null && !usernameFilter.mightExist(username)) {
+      return new ArrayList<>();
+    }
+    List<Member> result = QueryEvents.list("list", FIND_BY_USERNAME_JPQL, "member.username",
+        () -> em.createQuery(FIND_BY_USERNAME_JPQL, Member.class)
+            .setParameter("username", username));
+    if (usernameFilter != null && result.isEmpty()) {
+      usernameFilter.recordFalsePositive();
+    }
+    return result;
   }
 
   public List<Member> findByUsername_Querydsl(String username) {
-    return queryFactory.selectFrom(member)
+    if (usernameFilter != null && !usernameFilter.mightExist(username)) {
+      return new ArrayList<>();
+    }
+    List<Member> result = QueryDeadline.apply(queryFactory.selectFrom(member), em)
         .where(member.username.eq(username))
         .fetch();
+    if (usernameFilter != null && result.isEmpty()) {
+      usernameFilter.recordFalsePositive();
+    }
+    return result;
+  }
+
+  /**
+   * 조건에 맞는 회원의 나이를 amount 만큼 더한다. 영속성 컨텍스트를 거치지 않으므로 호출 후 컨텍스트를 비운다.
+   * 증분 export 가 찾을 수 있도록 modifiedAt 도 같이 바꾼다.
+   * outbox 가 켜져 있으면 같은 트랜잭션에 BULK_UPDATE 를 남긴다.
+   */
+  public long bulkAddAge(int amount, Predicate... where) {
+    long count = QueryEvents.execute("update", queryFactory
+        .update(member)
+        .set(member.age, member.age.add(amount))
+        .set(member.modifiedAt, LocalDateTime.now())
+        .where(where), where);
+    afterBulk(ChangeType.BULK_UPDATE);
+    return count;
+  }
+
+  /**
+   * 조건에 맞는 회원을 지운다. outbox 가 켜져 있으면 같은 트랜잭션에 BULK_DELETE 를 남긴다.
+   */
+  public long bulkDelete(Predicate... where) {
+    long count = QueryEvents.execute("delete", queryFactory
+        .delete(member)
+        .where(where), where);
+    afterBulk(ChangeType.BULK_DELETE);
+    return count;
+  }
+
+  private void afterBulk(ChangeType changeType) {
+    if (outboxWriter != null) {
+      outboxWriter.recordBulk(em, Member.class, changeType);
+    }
+    em.clear();
   }
 
   public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
@@ -79,8 +144,8 @@ public class MemberJpaRepository {
       builder.and(member.age.loe(condition.getAgeLoe()));
     }
 
-    return queryFactory
-        .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamName")))
+    return QueryDeadline.apply(queryFactory
+        .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamName"))), em)
         .from(member)
         .leftJoin(member.team, team)
         .where(builder)
@@ -88,31 +153,13 @@ public class MemberJpaRepository {
   }
 
   public List<MemberTeamDto> search(MemberSearchCondition condition) {
-    return queryFactory
-        .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamName")))
-        .from(member)
-        .leftJoin(member.team, team)
-        .where(usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
-            ageGoe(condition.getAgeGoe()),
-            ageLoe(condition.getAgeLoe())
-        )
-        .fetch();
-  }
-
-  private BooleanExpression ageLoe(Integer ageLoe) {
-    return ageLoe != null ? member.age.loe(ageLoe) : null;
-  }
-
-  private BooleanExpression ageGoe(Integer ageGoe) {
-    return ageGoe != null ? member.age.goe(ageGoe): null;
-  }
-
-  private BooleanExpression teamNameEq(String teamName) {
-    return StringUtils.isEmpty(teamName) ? null : team.name.eq(teamName);
+    return MemberSearchQuery.search(em, condition);
   }
 
-  private BooleanExpression usernameEq(String username) {
-    return StringUtils.isEmpty(username) ? null : member.username.eq(username);
+  /**
+   * 조건마다 {@link #search(MemberSearchCondition)} 한 결과를 같은 순서로 돌려준다. 쿼리는 한 번만 실행한다.
+   */
+  public List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conditions) {
+    return MemberBatchSearchQuery.search(em, conditions);
   }
 }
@@ -1,13 +1,21 @@
 package study.querydsl.repository;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
 
 public interface MemberRepositoryCustom {
 
+  /**
+   * {@link UsernameFilter} 가 있으면 확실히 없는 이름은 쿼리하지 않는다.
+   */
+  List<Member> findByUsername(String username);
+
   List<MemberTeamDto> search(MemberSearchCondition condition);
 
 
@@ -16,5 +24,12 @@ public interface MemberRepositoryCustom {
 
   Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
 
+  /**
+   * fields 에 있는 컬럼만 조회한다. 행은 필드 이름 -> 값.
+   */
+  List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields);
+
+  Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields,
+      Pageable pageable);
 
 }
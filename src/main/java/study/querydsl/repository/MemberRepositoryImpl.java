@@ -4,11 +4,23 @@ import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 import javax.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -19,28 +31,75 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.cache.MemberPageCache;
+import study.querydsl.repository.shard.MemberShards;
+import study.querydsl.repository.support.CountEstimator;
+import study.querydsl.repository.support.CountPolicy;
+import study.querydsl.repository.support.CountedPage;
+import study.querydsl.repository.support.QueryDeadline;
+import study.querydsl.repository.support.RecordingJPAQueryFactory;
+import study.querydsl.repository.support.SingleFlight;
 
 @Repository
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
+  private static final String SINGLE_FLIGHT_METRIC = "member.search.single.flight";
+
+  private final EntityManager em;
   private final JPAQueryFactory queryFactory;
+  private final SingleFlight<MemberSearchKey, Page<MemberTeamDto>> simpleSearches;
+  private final SingleFlight<MemberSearchKey, Page<MemberTeamDto>> complexSearches;
+  private final MemberShards memberShards;
+  private final MemberPageCache pageCache;
+  private final UsernameFilter usernameFilter;
+  private final CountPolicy complexCountPolicy;
+  private final CountEstimator countEstimator;
 
-  public MemberRepositoryImpl(EntityManager em) {
-    this.queryFactory = new JPAQueryFactory(em);
+  /**
+   * memberShards 는 app.sharding.enabled=true 일 때만 있다. 있으면 검색을 샤드로 보낸다.
+   * pageCache 는 app.result-cache.enabled=true, usernameFilter 는 app.username-filter.enabled=true 일 때만 있다.
+   * exactCountUpTo 가 0 이면 searchPageComplex 가 항상 count 를 하고, 아니면 그 건수를 넘는 total 은 추정한다.
+   */
+  public MemberRepositoryImpl(EntityManager em, MeterRegistry meterRegistry,
+      @Value("${app.single-flight.timeout-ms:5000}") long singleFlightTimeoutMillis,
+      @Value("${app.search.exact-count-up-to:0}") long exactCountUpTo,
+      ObjectProvider<MemberShards> memberShards, ObjectProvider<MemberPageCache> pageCache,
+      ObjectProvider<UsernameFilter> usernameFilter) {
+    this.em = em;
+    this.memberShards = memberShards.getIfAvailable();
+    this.pageCache = pageCache.getIfAvailable();
+    this.usernameFilter = usernameFilter.getIfAvailable();
+    this.queryFactory = new RecordingJPAQueryFactory(em);
+    this.complexCountPolicy = exactCountUpTo > 0
+        ? CountPolicy.exactUpTo(exactCountUpTo) : CountPolicy.exact();
+    this.countEstimator = new CountEstimator(em, queryFactory, Member.class);
+    Duration timeout = Duration.ofMillis(singleFlightTimeoutMillis);
+    this.simpleSearches = new SingleFlight<>(SINGLE_FLIGHT_METRIC, Tags.of("query", "simple"),
+        timeout, meterRegistry);
+    this.complexSearches = new SingleFlight<>(SINGLE_FLIGHT_METRIC, Tags.of("query", "complex"),
+        timeout, meterRegistry);
   }
 
   @Override
-  public List<MemberTeamDto> search(MemberSearchCondition condition) {
-    return queryFactory
-        .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamName")))
-        .from(member)
-        .leftJoin(member.team, team)
-        .where(usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
-            ageGoe(condition.getAgeGoe()),
-            ageLoe(condition.getAgeLoe())
-        )
+  public List<Member> findByUsername(String username) {
+    if (usernameFilter != null && !usernameFilter.mightExist(username)) {
+      return new ArrayList<>();
+    }
+    List<Member> result = QueryDeadline.apply(queryFactory.selectFrom(member), em)
+        .where(member.username.eq(username))
         .fetch();
+    if (usernameFilter != null && result.isEmpty()) {
+      usernameFilter.recordFalsePositive();
+    }
+    return result;
+  }
+
+  @Override
+  public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    if (memberShards != null) {
+      return memberShards.search(condition);
+    }
+    return MemberSearchQuery.search(em, condition);
   }
 
   private BooleanExpression ageLoe(Integer ageLoe) {
@@ -59,11 +118,31 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
     return StringUtils.isEmpty(username) ? null : member.username.eq(username);
   }
 
+  /**
+   * 동시에 들어온 같은 조건/페이지 검색은 한 번만 실행하고 결과를 공유한다.
+   */
   @Override
   public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-    QueryResults<MemberTeamDto> results = queryFactory
+    MemberSearchKey key = MemberSearchKey.of(condition, pageable);
+    return cached("simple", key, pageable,
+        () -> simpleSearches.execute(key, () -> doSearchPageSimple(condition, pageable)));
+  }
+
+  private Page<MemberTeamDto> cached(String query, MemberSearchKey key, Pageable pageable,
+      Supplier<Page<MemberTeamDto>> loader) {
+    if (pageCache == null) {
+      return loader.get();
+    }
+    return pageCache.getOrLoad(query, key, pageable, loader);
+  }
+
+  private Page<MemberTeamDto> doSearchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+    if (memberShards != null) {
+      return memberShards.searchPage(condition, pageable);
+    }
+    QueryResults<MemberTeamDto> results = QueryDeadline.apply(queryFactory
         .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age,
-            team.id.as("teamId"), team.name.as("teamName")))
+            team.id.as("teamId"), team.name.as("teamName"))), em)
         .from(member)
         .leftJoin(member.team, team)
         .where(usernameEq(condition.getUsername()),
@@ -81,34 +160,117 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
     return new PageImpl<>(content, pageable, total);
   }
 
+  /**
+   * 동시에 들어온 같은 조건/페이지 검색은 content, count 쿼리를 한 번만 실행하고 결과를 공유한다.
+   * 결과는 {@link CountedPage} 이고 app.search.exact-count-up-to 를 넘는 total 은 추정치다.
+   */
   @Override
   public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+    MemberSearchKey key = MemberSearchKey.of(condition, pageable);
+    return cached("complex", key, pageable,
+        () -> complexSearches.execute(key, () -> doSearchPageComplex(condition, pageable)));
+  }
 
-    List<MemberTeamDto> result = queryFactory
-        .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age,
-            team.id.as("teamId"), team.name.as("teamName")))
-        .from(member)
-        .leftJoin(member.team, team)
-        .where(usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
-            ageGoe(condition.getAgeGoe()),
-            ageLoe(condition.getAgeLoe())
-        )
+  private Page<MemberTeamDto> doSearchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+    if (memberShards != null) {
+      return exact(memberShards.searchPage(condition, pageable));
+    }
+    List<MemberTeamDto> result = MemberSearchQuery.search(em, condition, pageable);
+    if (!complexCountPolicy.isExact()) {
+      return countEstimator.page(result, pageable, countQuery(condition), complexCountPolicy);
+    }
+    return exact(PageableExecutionUtils.getPage(result, pageable,
+        () -> MemberSearchQuery.count(em, condition)));
+  }
+
+  private static Page<MemberTeamDto> exact(Page<MemberTeamDto> page) {
+    return new CountedPage<>(page.getContent(), page.getPageable(), page.getTotalElements(), true);
+  }
+
+  @Override
+  public List<Map<String, Object>> searchFields(MemberSearchCondition condition,
+      Set<MemberField> fields) {
+    if (memberShards != null) {
+      return trim(memberShards.search(condition), fields);
+    }
+    return toMaps(fieldsQuery(condition, fields).fetch(), fields);
+  }
+
+  @Override
+  public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition,
+      Set<MemberField> fields, Pageable pageable) {
+    if (memberShards != null) {
+      Page<MemberTeamDto> page = memberShards.searchPage(condition, pageable);
+      return new PageImpl<>(trim(page.getContent(), fields), pageable, page.getTotalElements());
+    }
+    List<Tuple> content = fieldsQuery(condition, fields)
         .offset(pageable.getOffset())
         .limit(pageable.getPageSize())
         .fetch();
 
-    JPAQuery<Member> query = queryFactory
-        .select(member)
-        .from(member)
-        .leftJoin(member.team, team)
+    return PageableExecutionUtils.getPage(toMaps(content, fields), pageable,
+        countQuery(condition)::fetchOne);
+  }
+
+  /**
+   * teamName 조건이 없으면 team 조인을 하지 않는다.
+   */
+  private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+    JPAQuery<Long> countQuery = QueryDeadline.apply(queryFactory.select(member.count()), em)
+        .from(member);
+    if (!StringUtils.isEmpty(condition.getTeamName())) {
+      countQuery.leftJoin(member.team, team);
+    }
+    return countQuery.where(usernameEq(condition.getUsername()),
+        teamNameEq(condition.getTeamName()),
+        ageGoe(condition.getAgeGoe()),
+        ageLoe(condition.getAgeLoe()));
+  }
+
+  /**
+   * 고른 컬럼만 select 하고, teamName 을 고르지 않았고 teamName 조건도 없으면 team 조인을 하지 않는다.
+   */
+  private JPAQuery<Tuple> fieldsQuery(MemberSearchCondition condition, Set<MemberField> fields) {
+    Expression<?>[] select = fields.stream()
+        .map(MemberField::getExpression)
+        .toArray(Expression<?>[]::new);
+    JPAQuery<Tuple> query = QueryDeadline.apply(queryFactory.select(select), em)
+        .from(member);
+    if (fields.contains(MemberField.TEAM_NAME) || !StringUtils.isEmpty(condition.getTeamName())) {
+      query.leftJoin(member.team, team);
+    }
+    return query
         .where(usernameEq(condition.getUsername()),
             teamNameEq(condition.getTeamName()),
             ageGoe(condition.getAgeGoe()),
-            ageLoe(condition.getAgeLoe())
-        );
+            ageLoe(condition.getAgeLoe()))
+        .orderBy(member.id.asc());
+  }
+
+  private List<Map<String, Object>> toMaps(List<Tuple> tuples, Set<MemberField> fields) {
+    List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+    for (Tuple tuple : tuples) {
+      Map<String, Object> row = new LinkedHashMap<>();
+      for (MemberField field : fields) {
+        row.put(field.getFieldName(), tuple.get(field.getExpression()));
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
 
-    return PageableExecutionUtils.getPage(result, pageable, query::fetchCount);
-//    return new PageImpl<>(result, pageable, total);
+  /**
+   * 샤드 검색은 전체 컬럼을 가져오므로 응답에서만 컬럼을 줄인다.
+   */
+  private List<Map<String, Object>> trim(List<MemberTeamDto> dtos, Set<MemberField> fields) {
+    List<Map<String, Object>> rows = new ArrayList<>(dtos.size());
+    for (MemberTeamDto dto : dtos) {
+      Map<String, Object> row = new LinkedHashMap<>();
+      for (MemberField field : fields) {
+        row.put(field.getFieldName(), field.valueOf(dto));
+      }
+      rows.add(row);
+    }
+    return rows;
   }
 }
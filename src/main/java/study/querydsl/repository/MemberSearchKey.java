@@ -0,0 +1,37 @@
+package study.querydsl.repository;
+
+import lombok.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+
+/**
+ * 정규화한 회원 검색 조건 + 페이지 정보. 같은 결과를 내는 검색은 같은 키가 된다.
+ * <p>
+ * MemberSearchCondition 은 바인딩용으로 값이 바뀔 수 있으므로 키로는 이 값 객체를 쓴다.
+ * 검색에서 빈 문자열은 조건이 없는 것과 같으므로 null 로 맞춘다.
+ */
+@Value
+public class MemberSearchKey {
+
+  String username;
+  String teamName;
+  Integer ageGoe;
+  Integer ageLoe;
+  int page;
+  int size;
+  Sort sort;
+
+  public static MemberSearchKey of(MemberSearchCondition condition, Pageable pageable) {
+    boolean paged = pageable != null && pageable.isPaged();
+    return new MemberSearchKey(
+        StringUtils.isEmpty(condition.getUsername()) ? null : condition.getUsername(),
+        StringUtils.isEmpty(condition.getTeamName()) ? null : condition.getTeamName(),
+        condition.getAgeGoe(),
+        condition.getAgeLoe(),
+        paged ? pageable.getPageNumber() : -1,
+        paged ? pageable.getPageSize() : -1,
+        paged ? pageable.getSort() : Sort.unsorted());
+  }
+}
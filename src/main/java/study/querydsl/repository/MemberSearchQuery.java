@@ -0,0 +1,178 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.QueryDeadline;
+import study.querydsl.repository.support.QueryEvents;
+import study.querydsl.repository.support.QueryExecutionEvent;
+
+/**
+ * MemberSearchCondition 의 조건 조합(shape)별로 JPQL 을 미리 만들어 두고, 호출 시에는 파라미터만 바인딩한다.
+ * <p>
+ * 조건 4개의 유무로 shape 는 16개가 나온다. 각 shape 의 JPQL 은 클래스 로딩 시 Querydsl 로 한 번만 직렬화하고,
+ * 매 호출마다 QMemberTeamDto / BooleanExpression 을 새로 만들거나 JPQL 을 다시 직렬화하지 않는다.
+ * <p>
+ * content 는 member id 순으로 정렬한다. 샤드 결과를 합칠 때도 이 순서를 쓴다.
+ * <p>
+ * 불변 상태만 가지므로 스레드 안전하다.
+ * <p>
+ * 요청 마감 시간({@link QueryDeadline})은 content, count 쿼리 모두에 건다.
+ * <p>
+ * JFR 기록 중이면 실행마다 {@link QueryExecutionEvent} 를 남긴다.
+ */
+public final class MemberSearchQuery {
+
+  static final int USERNAME = 1;
+  static final int TEAM_NAME = 1 << 1;
+  static final int AGE_GOE = 1 << 2;
+  static final int AGE_LOE = 1 << 3;
+  static final int SHAPES = 1 << 4;
+
+  private static final String[] CONTENT_JPQL = new String[SHAPES];
+  private static final String[] COUNT_JPQL = new String[SHAPES];
+  private static final String[] PREDICATE_FIELDS = new String[SHAPES];
+
+  static {
+    for (int shape = 0; shape < SHAPES; shape++) {
+      Predicate[] where = where(shape);
+      CONTENT_JPQL[shape] = new JPAQuery<>()
+          .select(member.id, member.username, member.age, team.id, team.name)
+          .from(member)
+          .leftJoin(member.team, team)
+          .where(where)
+          .orderBy(member.id.asc())
+          .toString();
+      COUNT_JPQL[shape] = new JPAQuery<>()
+          .select(member.count())
+          .from(member)
+          .leftJoin(member.team, team)
+          .where(where)
+          .toString();
+      PREDICATE_FIELDS[shape] = predicateFields(shape);
+    }
+  }
+
+  private MemberSearchQuery() {
+  }
+
+  /**
+   * 템플릿용 조건. 값은 자리만 차지하며, 직렬화 시 등장 순서대로 ?1, ?2 ... 위치 파라미터가 된다.
+   * 같은 값끼리 라벨이 합쳐지지 않도록 서로 다른 값을 쓴다.
+   */
+  private static Predicate[] where(int shape) {
+    return new Predicate[]{
+        (shape & USERNAME) != 0 ? member.username.eq("username") : null,
+        (shape & TEAM_NAME) != 0 ? team.name.eq("teamName") : null,
+        (shape & AGE_GOE) != 0 ? member.age.goe(0) : null,
+        (shape & AGE_LOE) != 0 ? member.age.loe(1) : null
+    };
+  }
+
+  /**
+   * {@link QueryExecutionEvent} 의 predicateFields. Querydsl 경로 이름과 같은 형식으로 이름순이다.
+   */
+  private static String predicateFields(int shape) {
+    List<String> fields = new ArrayList<>();
+    if ((shape & (AGE_GOE | AGE_LOE)) != 0) {
+      fields.add("member.age");
+    }
+    if ((shape & USERNAME) != 0) {
+      fields.add("member.username");
+    }
+    if ((shape & TEAM_NAME) != 0) {
+      fields.add("team.name");
+    }
+    return String.join(",", fields);
+  }
+
+  static int shapeOf(MemberSearchCondition condition) {
+    int shape = 0;
+    if (!StringUtils.isEmpty(condition.getUsername())) {
+      shape |= USERNAME;
+    }
+    if (!StringUtils.isEmpty(condition.getTeamName())) {
+      shape |= TEAM_NAME;
+    }
+    if (condition.getAgeGoe() != null) {
+      shape |= AGE_GOE;
+    }
+    if (condition.getAgeLoe() != null) {
+      shape |= AGE_LOE;
+    }
+    return shape;
+  }
+
+  static String contentJpql(int shape) {
+    return CONTENT_JPQL[shape];
+  }
+
+  static String countJpql(int shape) {
+    return COUNT_JPQL[shape];
+  }
+
+  public static List<MemberTeamDto> search(EntityManager em, MemberSearchCondition condition) {
+    int shape = shapeOf(condition);
+    return toDtos(QueryEvents.list("list", CONTENT_JPQL[shape], PREDICATE_FIELDS[shape], () -> {
+      TypedQuery<Object[]> query = QueryDeadline.apply(em.createQuery(CONTENT_JPQL[shape], Object[].class), em);
+      bind(query, shape, condition);
+      return query;
+    }));
+  }
+
+  public static List<MemberTeamDto> search(EntityManager em, MemberSearchCondition condition,
+      Pageable pageable) {
+    int shape = shapeOf(condition);
+    return toDtos(QueryEvents.list("list", CONTENT_JPQL[shape], PREDICATE_FIELDS[shape], () -> {
+      TypedQuery<Object[]> query = QueryDeadline.apply(em.createQuery(CONTENT_JPQL[shape], Object[].class), em);
+      bind(query, shape, condition);
+      query.setFirstResult((int) pageable.getOffset());
+      query.setMaxResults(pageable.getPageSize());
+      return query;
+    }));
+  }
+
+  public static long count(EntityManager em, MemberSearchCondition condition) {
+    int shape = shapeOf(condition);
+    return QueryEvents.list("count", COUNT_JPQL[shape], PREDICATE_FIELDS[shape], () -> {
+      TypedQuery<Long> query = QueryDeadline.apply(em.createQuery(COUNT_JPQL[shape], Long.class), em);
+      bind(query, shape, condition);
+      return query;
+    }).get(0);
+  }
+
+  static void bind(TypedQuery<?> query, int shape, MemberSearchCondition condition) {
+    int position = 1;
+    if ((shape & USERNAME) != 0) {
+      query.setParameter(position++, condition.getUsername());
+    }
+    if ((shape & TEAM_NAME) != 0) {
+      query.setParameter(position++, condition.getTeamName());
+    }
+    if ((shape & AGE_GOE) != 0) {
+      query.setParameter(position++, condition.getAgeGoe());
+    }
+    if ((shape & AGE_LOE) != 0) {
+      query.setParameter(position, condition.getAgeLoe());
+    }
+  }
+
+  private static List<MemberTeamDto> toDtos(List<Object[]> rows) {
+    List<MemberTeamDto> result = new ArrayList<>(rows.size());
+    for (Object[] row : rows) {
+      result.add(new MemberTeamDto((Long) row[0], (String) row[1], (Integer) row[2],
+          (Long) row[3], (String) row[4]));
+    }
+    return result;
+  }
+}
@@ -15,6 +15,7 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.repository.support.CountPolicy;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 public class MemberTestRepository extends Querydsl4RepositorySupport {
@@ -76,6 +77,22 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     );
   }
 
+  /**
+   * 결과가 countThreshold 건을 넘으면 total 을 추정한다.
+   */
+  public Page<Member> applyPaginationEstimated(MemberSearchCondition condition, Pageable pageable,
+      long countThreshold) {
+    return applyPagination(pageable, query ->
+        query.selectFrom(member)
+            .leftJoin(member.team, team)
+            .where(usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())),
+        CountPolicy.exactUpTo(countThreshold)
+    );
+  }
+
   private BooleanExpression ageLoe(Integer ageLoe) {
     return ageLoe != null ? member.age.loe(ageLoe) : null;
   }
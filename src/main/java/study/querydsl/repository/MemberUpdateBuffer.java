@@ -0,0 +1,286 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberUpdateDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 회원 수정(age, team)을 모아 한 트랜잭션으로 커밋한다(group commit).
+ * <p>
+ * 같은 회원에 대한 수정은 버퍼 안에서 하나로 합친다(나중 값이 이긴다). batchSize 개가 모이거나 첫 수정 뒤 maxDelay 가 지나면
+ * flush 스레드가 회원들을 in 쿼리 한 번으로 읽고 값을 바꾼 뒤 JDBC batch 로 update 하고 커밋한다.
+ * 엔티티로 바꾸므로 modifiedAt, TableVersions 같은 엔티티 이벤트는 그대로 동작한다.
+ * <p>
+ * submit 이 돌려주는 future 는 커밋된 뒤에 완료된다(durability ack). 커밋이 실패하면 그 batch 의 future 가 모두 실패하고,
+ * 없는 회원이나 없는 팀을 가리키는 수정은 그 요청만 EntityNotFoundException 으로 실패하고, 같은 배치의 나머지는 커밋된다.
+ * 합쳐지지 않은 회원이 capacity 개이면 submit 이 offerTimeout 까지 기다린 뒤 {@link WriteBufferFullException} 을 던진다(back-pressure).
+ * <p>
+ * 팀을 비우는 수정은 지원하지 않는다(teamId null 은 "바꾸지 않음" 이다).
+ */
+@Slf4j
+public class MemberUpdateBuffer {
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+  private final TransactionTemplate transactionTemplate;
+  private final int capacity;
+  private final int batchSize;
+  private final long maxDelayNanos;
+  private final long offerTimeoutNanos;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notFull = lock.newCondition();
+  private final Condition ready = lock.newCondition();
+  private Map<Long, Pending> pending = new LinkedHashMap<>();
+  private long firstPendingAt;
+  private boolean running = true;
+  private final Thread flusher;
+
+  private final Counter submitted;
+  private final Counter coalesced;
+  private final Counter rejected;
+  private final DistributionSummary batchSizes;
+  private final Timer commits;
+
+  public MemberUpdateBuffer(EntityManager em, TransactionTemplate transactionTemplate,
+      MeterRegistry registry, int capacity, int batchSize, Duration maxDelay, Duration offerTimeout) {
+    this.em = em;
+    this.queryFactory = new JPAQueryFactory(em);
+    this.transactionTemplate = transactionTemplate;
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.maxDelayNanos = maxDelay.toNanos();
+    this.offerTimeoutNanos = offerTimeout.toNanos();
+    this.submitted = Counter.builder("member.update.buffer.submitted").register(registry);
+    this.coalesced = Counter.builder("member.update.buffer.coalesced")
+        .description("updates merged into a pending update of the same member")
+        .register(registry);
+    this.rejected = Counter.builder("member.update.buffer.rejected")
+        .description("updates refused because the buffer stayed full")
+        .register(registry);
+    this.batchSizes = DistributionSummary.builder("member.update.buffer.batch.size")
+        .register(registry);
+    this.commits = Timer.builder("member.update.buffer.commit").register(registry);
+    registry.gauge("member.update.buffer.pending", this, MemberUpdateBuffer::size);
+    this.flusher = new Thread(this::flushLoop, "member-update-flusher");
+    this.flusher.setDaemon(true);
+    this.flusher.start();
+  }
+
+  public CompletableFuture<Void> submit(Long memberId, MemberUpdateDto update) {
+    CompletableFuture<Void> ack = new CompletableFuture<>();
+    lock.lock();
+    try {
+      if (!running) {
+        throw new IllegalStateException("Member update buffer is closed");
+      }
+      Pending existing = pending.get(memberId);
+      if (existing != null) {
+        existing.merge(update, ack);
+        coalesced.increment();
+      } else {
+        long waitNanos = offerTimeoutNanos;
+        while (running && pending.size() >= capacity) {
+          if (waitNanos <= 0) {
+            rejected.increment();
+            throw new WriteBufferFullException("Member update buffer is full (" + capacity + ")");
+          }
+          waitNanos = notFull.awaitNanos(waitNanos);
+        }
+        if (!running) {
+          throw new IllegalStateException("Member update buffer is closed");
+        }
+        Pending created = new Pending();
+        created.merge(update, ack);
+        pending.put(memberId, created);
+        if (pending.size() == 1) {
+          firstPendingAt = System.nanoTime();
+          ready.signal();
+        } else if (pending.size() >= batchSize) {
+          ready.signal();
+        }
+      }
+      submitted.increment();
+      return ack;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WriteBufferFullException("Interrupted while waiting for buffer space");
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int size() {
+    lock.lock();
+    try {
+      return pending.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 남은 수정을 모두 커밋하고 멈춘다.
+   */
+  @PreDestroy
+  public void close() throws InterruptedException {
+    lock.lock();
+    try {
+      running = false;
+      ready.signal();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    flusher.join(TimeUnit.SECONDS.toMillis(30));
+  }
+
+  private void flushLoop() {
+    while (true) {
+      Map<Long, Pending> batch;
+      lock.lock();
+      try {
+        while (running && !due()) {
+          if (pending.isEmpty()) {
+            ready.await();
+          } else {
+            ready.awaitNanos(firstPendingAt + maxDelayNanos - System.nanoTime());
+          }
+        }
+        if (pending.isEmpty()) {
+          return;
+        }
+        batch = pending;
+        pending = new LinkedHashMap<>();
+        notFull.signalAll();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        lock.unlock();
+      }
+      flush(batch);
+    }
+  }
+
+  private boolean due() {
+    return pending.size() >= batchSize
+        || (!pending.isEmpty() && System.nanoTime() - firstPendingAt >= maxDelayNanos);
+  }
+
+  private void flush(Map<Long, Pending> batch) {
+    batchSizes.record(batch.size());
+    Map<Long, EntityNotFoundException> notFound = new HashMap<>();
+    try {
+      commits.record(() -> transactionTemplate.executeWithoutResult(status -> {
+        notFound.clear();
+        em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        Map<Long, Member> members = new LinkedHashMap<>();
+        for (Member found : queryFactory.selectFrom(member)
+            .where(member.id.in(batch.keySet()))
+            .fetch()) {
+          members.put(found.getId(), found);
+        }
+        Map<Long, Team> teams = loadTeams(batch);
+        for (Map.Entry<Long, Pending> entry : batch.entrySet()) {
+          Member target = members.get(entry.getKey());
+          Pending update = entry.getValue();
+          if (target == null) {
+            notFound.put(entry.getKey(),
+                new EntityNotFoundException("Member " + entry.getKey() + " not found"));
+            continue;
+          }
+          if (update.teamId != null && !teams.containsKey(update.teamId)) {
+            notFound.put(entry.getKey(),
+                new EntityNotFoundException("Team " + update.teamId + " not found"));
+            continue;
+          }
+          if (update.age != null) {
+            target.setAge(update.age);
+          }
+          if (update.teamId != null) {
+            target.setTeam(teams.get(update.teamId));
+          }
+        }
+      }));
+    } catch (RuntimeException e) {
+      log.warn("member update batch of {} failed", batch.size(), e);
+      batch.values().forEach(p -> p.acks.forEach(ack -> ack.completeExceptionally(e)));
+      return;
+    }
+    for (Map.Entry<Long, Pending> entry : batch.entrySet()) {
+      EntityNotFoundException failure = notFound.get(entry.getKey());
+      if (failure != null) {
+        entry.getValue().acks.forEach(ack -> ack.completeExceptionally(failure));
+      } else {
+        entry.getValue().acks.forEach(ack -> ack.complete(null));
+      }
+    }
+  }
+
+  /**
+   * 배치가 가리키는 팀을 IN 한 번으로 읽는다. 없는 팀은 결과에 없으므로 그 회원의 수정만 404 로 끝낸다.
+   * getReference 로 두면 커밋할 때 FK 위반이 나서 같은 배치의 다른 수정까지 모두 롤백된다.
+   */
+  private Map<Long, Team> loadTeams(Map<Long, Pending> batch) {
+    Set<Long> teamIds = new HashSet<>();
+    for (Pending update : batch.values()) {
+      if (update.teamId != null) {
+        teamIds.add(update.teamId);
+      }
+    }
+    Map<Long, Team> teams = new HashMap<>();
+    if (teamIds.isEmpty()) {
+      return teams;
+    }
+    for (Team found : queryFactory.selectFrom(team)
+        .where(team.id.in(teamIds))
+        .fetch()) {
+      teams.put(found.getId(), found);
+    }
+    return teams;
+  }
+
+  private static class Pending {
+
+    private Integer age;
+    private Long teamId;
+    private final List<CompletableFuture<Void>> acks = new ArrayList<>(1);
+
+    private void merge(MemberUpdateDto update, CompletableFuture<Void> ack) {
+      if (update.getAge() != null) {
+        age = update.getAge();
+      }
+      if (update.getTeamId() != null) {
+        teamId = update.getTeamId();
+      }
+      acks.add(ack);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package study.querydsl.repository;
+
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.TeamMembersDto;
+
+public interface TeamRepositoryCustom {
+
+  Page<TeamMembersDto> searchTeamsWithMembers(Pageable pageable);
+
+  List<TeamMembersDto> searchOldestMembersPerTeam(int limit);
+
+}
@@ -0,0 +1,109 @@
+package study.querydsl.repository;
+
+import static com.querydsl.core.group.GroupBy.groupBy;
+import static com.querydsl.core.group.GroupBy.list;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.repository.support.QueryDeadline;
+
+@Repository
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+  private static final String OLDEST_MEMBERS_SQL =
+      "select team_id, team_name, username, age from ("
+          + "select t.id team_id, t.name team_name, m.username, m.age,"
+          + " row_number() over (partition by t.id order by m.age desc, m.member_id) rn"
+          + " from member m join team t on m.team_id = t.id"
+          + ") ranked where rn <= ? order by team_id, rn";
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+
+  public TeamRepositoryImpl(EntityManager em) {
+    this.em = em;
+    this.queryFactory = new JPAQueryFactory(em);
+  }
+
+  /**
+   * 팀을 먼저 페이징하고, 그 팀들의 회원을 한 번의 쿼리로 읽어 팀별로 묶는다.
+   * <p>
+   * Team.members 를 팀마다 초기화하거나 fetch join 으로 페이징하지 않으므로, 팀 수와 상관없이
+   * 팀 조회 / 회원 조회 / (필요하면) count 쿼리까지 최대 3번만 실행된다.
+   */
+  @Override
+  public Page<TeamMembersDto> searchTeamsWithMembers(Pageable pageable) {
+    List<Tuple> teams = QueryDeadline.apply(queryFactory.select(team.id, team.name), em)
+        .from(team)
+        .orderBy(team.id.asc())
+        .offset(pageable.getOffset())
+        .limit(pageable.getPageSize())
+        .fetch();
+
+    List<Long> teamIds = teams.stream()
+        .map(tuple -> tuple.get(team.id))
+        .collect(Collectors.toList());
+
+    Map<Long, List<MemberDto>> membersByTeam = teamIds.isEmpty()
+        ? Collections.emptyMap()
+        : QueryDeadline.apply(queryFactory.from(member), em)
+            .where(member.team.id.in(teamIds))
+            .orderBy(member.id.asc())
+            .transform(groupBy(member.team.id).as(list(new QMemberDto(member.username, member.age))));
+
+    List<TeamMembersDto> content = new ArrayList<>(teams.size());
+    for (Tuple tuple : teams) {
+      Long teamId = tuple.get(team.id);
+      content.add(new TeamMembersDto(teamId, tuple.get(team.name),
+          membersByTeam.getOrDefault(teamId, Collections.emptyList())));
+    }
+
+    JPAQuery<Long> countQuery = QueryDeadline.apply(queryFactory
+        .select(team.count())
+        .from(team), em);
+
+    return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+  }
+
+  /**
+   * 팀마다 나이가 많은 회원을 limit 명까지 읽는다. 같은 나이면 id 순이다. 회원이 없는 팀은 빠진다.
+   * <p>
+   * 팀 안에서의 순번은 row_number() over (partition by team_id ...) 로 DB 가 한 번에 매기고, from 절 서브쿼리 밖에서
+   * 순번으로 거르므로 팀마다 limit 행만 읽어 온다. HQL 은 from 절 서브쿼리를 못 쓰므로 native SQL 로 쓴다.
+   */
+  @Override
+  public List<TeamMembersDto> searchOldestMembersPerTeam(int limit) {
+    List<?> rows = QueryDeadline.apply(em.createNativeQuery(OLDEST_MEMBERS_SQL), em)
+        .setParameter(1, limit)
+        .getResultList();
+
+    List<TeamMembersDto> content = new ArrayList<>();
+    TeamMembersDto current = null;
+    for (Object result : rows) {
+      Object[] row = (Object[]) result;
+      long teamId = ((Number) row[0]).longValue();
+      if (current == null || current.getTeamId() != teamId) {
+        current = new TeamMembersDto(teamId, (String) row[1], new ArrayList<>(limit));
+        content.add(current);
+      }
+      current.getMembers().add(new MemberDto((String) row[2], ((Number) row[3]).intValue()));
+    }
+    return content;
+  }
+}
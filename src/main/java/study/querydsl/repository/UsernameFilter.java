@@ -0,0 +1,301 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.OutboxEvent.ChangeType;
+import study.querydsl.repository.outbox.ChangeEvent;
+import study.querydsl.repository.outbox.ChangeListener;
+import study.querydsl.repository.support.CuckooFilter;
+
+/**
+ * Member.username 의 cuckoo filter. findByUsername 이 "확실히 없는" 이름이면 쿼리를 하지 않게 한다.
+ * <p>
+ * 기동 시 username 을 스트리밍으로 읽어 채우고, 그 전에는 항상 "있을 수도 있음" 을 답한다.
+ * 추가는 커밋 전(insert/update 직후)에 한다. 롤백되면 false positive 가 하나 남을 뿐이지만, 커밋 뒤에 넣으면 잠깐 동안 있는 이름을 없다고 답할 수 있다.
+ * 삭제는 커밋된 뒤에만 한다. 채우는 중의 삭제는 건너뛴다. 넣지 않은 값을 지우면 다른 이름의 fingerprint 를 지울 수 있기 때문이다.
+ * username 은 유일하지 않고 filter 는 같은 이름을 한 칸에만 두므로, 그 이름의 회원이 아직 남아 있으면 지우지 않는다.
+ * <p>
+ * JPQL bulk update, JDBC 로 직접 넣은 행, 다른 노드의 변경은 잡히지 않는다. 이 경우 없는 이름으로 답할 수 있으므로 그런 쓰기가 있는 환경에서는 켜지 않는다.
+ * outbox(app.outbox.enabled=true)가 켜져 있으면 다른 노드의 insert/update 는 id 로 이름을 읽어 넣고, Member bulk update 나
+ * CSV import(BULK_INSERT)가 오면 filter 를 다시 만든다.
+ * 이때는 outbox 를 읽는 주기만큼 늦게 반영된다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.username-filter.enabled", havingValue = "true")
+public class UsernameFilter implements ApplicationRunner, ChangeListener {
+
+  private final EntityManagerFactory entityManagerFactory;
+  private final long expectedEntries;
+  private volatile CuckooFilter filter;
+  private volatile CuckooFilter rebuilding;
+  private volatile boolean ready;
+
+  private final Counter negatives;
+  private final Counter positives;
+  private final Counter falsePositives;
+
+  public UsernameFilter(EntityManagerFactory entityManagerFactory, MeterRegistry registry,
+      @Value("${app.username-filter.expected-entries:1000000}") long expectedEntries) {
+    this.entityManagerFactory = entityManagerFactory;
+    this.expectedEntries = expectedEntries;
+    this.filter = new CuckooFilter(expectedEntries);
+    this.negatives = Counter.builder("member.username.filter.lookups")
+        .tag("result", "negative")
+        .register(registry);
+    this.positives = Counter.builder("member.username.filter.lookups")
+        .tag("result", "positive")
+        .register(registry);
+    this.falsePositives = Counter.builder("member.username.filter.false.positives")
+        .description("positive lookups whose query found nothing")
+        .register(registry);
+    Gauge.builder("member.username.filter.false.positive.rate", this,
+            UsernameFilter::falsePositiveRate)
+        .register(registry);
+    Gauge.builder("member.username.filter.memory", this, f -> f.filter.getMemoryBytes())
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("member.username.filter.entries", this, f -> f.filter.size())
+        .register(registry);
+    Gauge.builder("member.username.filter.saturated", this, f -> f.filter.isSaturated() ? 1 : 0)
+        .register(registry);
+  }
+
+  /**
+   * 채우기 전에 리스너부터 등록한다. 그 사이의 쓰기가 두 번 들어가도 false positive 가 될 뿐이다.
+   */
+  @PostConstruct
+  public void register() {
+    EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_INSERT, new InsertListener());
+    registry.appendListeners(EventType.POST_UPDATE, new UpdateListener());
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, new CommittedUpdateListener());
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, new CommittedDeleteListener());
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    rebuild();
+    ready = true;
+  }
+
+  /**
+   * 새 filter 를 채워서 바꾼다. 채우는 동안 들어온 이름은 두 filter 에 모두 넣는다.
+   */
+  private synchronized void rebuild() {
+    long started = System.nanoTime();
+    CuckooFilter building = new CuckooFilter(expectedEntries);
+    rebuilding = building;
+    EntityManager em = entityManagerFactory.createEntityManager();
+    try (Stream<String> usernames = em
+        .createQuery("select distinct m.username from Member m where m.username is not null", String.class)
+        .setHint("org.hibernate.fetchSize", 1000)
+        .setHint("org.hibernate.readOnly", true)
+        .getResultStream()) {
+      Iterator<String> iterator = usernames.iterator();
+      while (iterator.hasNext()) {
+        building.put(iterator.next());
+      }
+    } finally {
+      em.close();
+    }
+    filter = building;
+    rebuilding = null;
+    log.info("username filter built: {} entries, {} bytes, saturated={}, {} ms", building.size(),
+        building.getMemoryBytes(), building.isSaturated(), (System.nanoTime() - started) / 1_000_000);
+  }
+
+  @Override
+  public void onChange(ChangeEvent event) {
+    if (!"Member".equals(event.getAggregate()) || !ready) {
+      return;
+    }
+    if (event.getChangeType() == ChangeType.BULK_UPDATE
+        || event.getChangeType() == ChangeType.BULK_INSERT) {
+      rebuild();
+      return;
+    }
+    if (event.isLocal()
+        || (event.getChangeType() != ChangeType.INSERT && event.getChangeType() != ChangeType.UPDATE)) {
+      return;
+    }
+    EntityManager em = entityManagerFactory.createEntityManager();
+    try {
+      em.createQuery("select m.username from Member m where m.id = :id", String.class)
+          .setParameter("id", event.getAggregateId())
+          .getResultList()
+          .forEach(this::put);
+    } finally {
+      em.close();
+    }
+  }
+
+  private void put(String username) {
+    filter.put(username);
+    CuckooFilter building = rebuilding;
+    if (building != null) {
+      building.put(username);
+    }
+  }
+
+  /**
+   * 삭제나 이름 변경이 커밋된 뒤에 부른다. 같은 이름의 다른 회원이 남아 있으면 지우지 않는다.
+   */
+  private void removeIfUnused(String username) {
+    EntityManager em = entityManagerFactory.createEntityManager();
+    try {
+      boolean used = !em.createQuery("select m.id from Member m where m.username = :username", Long.class)
+          .setParameter("username", username)
+          .setMaxResults(1)
+          .getResultList()
+          .isEmpty();
+      if (!used) {
+        filter.remove(username);
+      }
+    } finally {
+      em.close();
+    }
+  }
+
+  /**
+   * false 이면 그 이름의 회원은 확실히 없다.
+   */
+  public boolean mightExist(String username) {
+    if (username == null || !ready) {
+      return true;
+    }
+    if (filter.mightContain(username)) {
+      positives.increment();
+      return true;
+    }
+    negatives.increment();
+    return false;
+  }
+
+  /**
+   * mightExist 가 true 였는데 실제로 없었을 때 호출한다.
+   */
+  public void recordFalsePositive() {
+    falsePositives.increment();
+  }
+
+  /**
+   * 실제로 없는 이름 중 filter 가 걸러내지 못한 비율.
+   */
+  private double falsePositiveRate() {
+    double fp = falsePositives.count();
+    double misses = fp + negatives.count();
+    return misses == 0 ? 0 : fp / misses;
+  }
+
+  private static String username(EntityPersister persister, Object[] state) {
+    if (state == null || !Member.class.isAssignableFrom(persister.getMappedClass())) {
+      return null;
+    }
+    int index = persister.getEntityMetamodel().getPropertyIndex("username");
+    return (String) state[index];
+  }
+
+  private class InsertListener implements PostInsertEventListener {
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+      String username = username(event.getPersister(), event.getState());
+      if (username != null) {
+        put(username);
+      }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+      return false;
+    }
+  }
+
+  private class UpdateListener implements PostUpdateEventListener {
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+      String username = username(event.getPersister(), event.getState());
+      String old = username(event.getPersister(), event.getOldState());
+      if (username != null && !username.equals(old)) {
+        put(username);
+      }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+      return false;
+    }
+  }
+
+  /**
+   * 이전 상태를 모르는 update(merge 등)는 옛 이름을 지우지 못한다. false positive 로 남는다.
+   */
+  private class CommittedUpdateListener implements PostCommitUpdateEventListener {
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+      String username = username(event.getPersister(), event.getState());
+      String old = username(event.getPersister(), event.getOldState());
+      if (ready && rebuilding == null && old != null && !old.equals(username)) {
+        removeIfUnused(old);
+      }
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+      return true;
+    }
+  }
+
+  private class CommittedDeleteListener implements PostCommitDeleteEventListener {
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+      String username = username(event.getPersister(), event.getDeletedState());
+      if (ready && rebuilding == null && username != null) {
+        removeIfUnused(username);
+      }
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package study.querydsl.repository;
+
+import org.springframework.dao.TransientDataAccessException;
+
+/**
+ * 쓰기 버퍼가 가득 차서 정해진 시간 안에 자리가 나지 않았다. 잠시 뒤 다시 시도하면 된다.
+ */
+public class WriteBufferFullException extends TransientDataAccessException {
+
+  public WriteBufferFullException(String msg) {
+    super(msg);
+  }
+}
@@ -0,0 +1,321 @@
+package study.querydsl.repository.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberSearchKey;
+import study.querydsl.repository.support.CountedPage;
+import study.querydsl.repository.support.OffHeapArena;
+import study.querydsl.repository.support.TableVersions;
+
+/**
+ * 회원 검색 페이지({@code Page<MemberTeamDto>}) 결과 캐시. 값은 힙 밖({@link OffHeapArena})에 직렬화해서 둔다.
+ * <p>
+ * 힙에는 키와 블록 번호만 남으므로 캐시가 커져도 old generation 이 늘지 않는다. 꺼낼 때 만드는 DTO 는 요청이 끝나면 버려지는 단명 객체다.
+ * 블록이 모자라면 가장 오래 안 쓴 페이지부터 버린다(LRU).
+ * <p>
+ * Member / Team 이 바뀌면({@link TableVersions}) 다음 접근 때 전부 비운다. 어떤 변경이든 어느 페이지의 content 나 total 에 영향을 줄 수 있기 때문이다.
+ * 쿼리 실행 전에 읽은 버전으로만 저장하므로 실행 도중 커밋된 변경이 옛 결과로 남지 않는다. JPQL bulk update/delete 는 TableVersions 에 잡히지 않으므로 반영되지 않는다.
+ */
+public class MemberPageCache {
+
+  private static final byte TEAM_ID = 1;
+  private static final byte TEAM_NAME = 1 << 1;
+  private static final byte PLAIN_TOTAL = 0;
+  private static final byte EXACT_TOTAL = 1;
+  private static final byte ESTIMATED_TOTAL = 2;
+  private static final ThreadLocal<Boolean> BYPASS = new ThreadLocal<>();
+
+  private final OffHeapArena arena;
+  private final int maxEntryBytes;
+  private final TableVersions tableVersions;
+  private final Map<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+  private long version;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+  private final Counter invalidations;
+
+  public MemberPageCache(long capacityBytes, int blockBytes, TableVersions tableVersions,
+      MeterRegistry registry) {
+    this.arena = new OffHeapArena(capacityBytes, blockBytes);
+    this.maxEntryBytes = (int) Math.min(Integer.MAX_VALUE, capacityBytes / 8);
+    this.tableVersions = tableVersions;
+    this.version = currentVersion();
+    this.hits = Counter.builder("member.page.cache.hits").register(registry);
+    this.misses = Counter.builder("member.page.cache.misses").register(registry);
+    this.evictions = Counter.builder("member.page.cache.evictions")
+        .description("pages dropped to make room")
+        .register(registry);
+    this.invalidations = Counter.builder("member.page.cache.invalidations")
+        .description("times the whole cache was cleared by a Member/Team write")
+        .register(registry);
+    Gauge.builder("member.page.cache.entries", this, MemberPageCache::size).register(registry);
+    Gauge.builder("member.page.cache.used.bytes", this, MemberPageCache::getUsedBytes)
+        .baseUnit("bytes")
+        .register(registry);
+  }
+
+  /**
+   * work 를 실행하는 동안 이 스레드의 getOrLoad 는 캐시를 읽지도 채우지도 않고 바로 loader 를 부른다. warm-up 처럼
+   * 쿼리를 실제로 실행해야 하는 호출에 쓴다.
+   */
+  public static <T> T bypass(Supplier<T> work) {
+    Boolean outer = BYPASS.get();
+    BYPASS.set(Boolean.TRUE);
+    try {
+      return work.get();
+    } finally {
+      if (outer == null) {
+        BYPASS.remove();
+      }
+    }
+  }
+
+  /**
+   * query 는 같은 조건이라도 결과(정렬 등)가 다른 검색을 구분한다.
+   */
+  public Page<MemberTeamDto> getOrLoad(String query, MemberSearchKey searchKey, Pageable pageable,
+      Supplier<Page<MemberTeamDto>> loader) {
+    if (BYPASS.get() != null) {
+      return loader.get();
+    }
+    Key key = new Key(query, searchKey);
+    long loadedAt = currentVersion();
+    Page<MemberTeamDto> cached = get(key, pageable, loadedAt);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+    Page<MemberTeamDto> page = loader.get();
+    put(key, page, loadedAt);
+    return page;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long getUsedBytes() {
+    return arena.getUsedBytes();
+  }
+
+  private long currentVersion() {
+    return tableVersions.getMemberVersion() + tableVersions.getTeamVersion();
+  }
+
+  private synchronized Page<MemberTeamDto> get(Key key, Pageable pageable, long current) {
+    invalidateIfChanged(current);
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    return decode(arena.read(entry.blocks, entry.length), pageable);
+  }
+
+  private void put(Key key, Page<MemberTeamDto> page, long loadedAt) {
+    Encoder encoder = encode(page);
+    if (encoder.length > maxEntryBytes) {
+      return;
+    }
+    synchronized (this) {
+      invalidateIfChanged(currentVersion());
+      if (loadedAt != version || entries.containsKey(key)) {
+        return;
+      }
+      int needed = arena.blocksFor(encoder.length);
+      Iterator<Entry> eldest = entries.values().iterator();
+      while (arena.getFreeBlocks() < needed && eldest.hasNext()) {
+        arena.free(eldest.next().blocks);
+        eldest.remove();
+        evictions.increment();
+      }
+      int[] blocks = arena.write(encoder.bytes, encoder.length);
+      if (blocks != null) {
+        entries.put(key, new Entry(blocks, encoder.length));
+      }
+    }
+  }
+
+  private void invalidateIfChanged(long current) {
+    if (current == version) {
+      return;
+    }
+    for (Entry entry : entries.values()) {
+      arena.free(entry.blocks);
+    }
+    entries.clear();
+    version = current;
+    invalidations.increment();
+  }
+
+  /**
+   * total, total 종류(PageImpl / 정확한 CountedPage / 추정한 CountedPage), 행 수,
+   * 그리고 행마다 [flags, memberId, age, teamId?, username, teamName?].
+   * 숫자는 가변 길이(varint), 문자열은 길이 + UTF-8 로 쓴다.
+   */
+  static Encoder encode(Page<MemberTeamDto> page) {
+    List<MemberTeamDto> content = page.getContent();
+    Encoder out = new Encoder(64 + content.size() * 32);
+    out.writeVarLong(page.getTotalElements());
+    if (page instanceof CountedPage) {
+      out.writeByte(((CountedPage<?>) page).isTotalExact() ? EXACT_TOTAL : ESTIMATED_TOTAL);
+    } else {
+      out.writeByte(PLAIN_TOTAL);
+    }
+    out.writeVarLong(content.size());
+    for (MemberTeamDto dto : content) {
+      byte flags = 0;
+      if (dto.getTeamId() != null) {
+        flags |= TEAM_ID;
+      }
+      if (dto.getTeamName() != null) {
+        flags |= TEAM_NAME;
+      }
+      out.writeByte(flags);
+      out.writeVarLong(dto.getMemberId());
+      out.writeVarLong(dto.getAge());
+      if (dto.getTeamId() != null) {
+        out.writeVarLong(dto.getTeamId());
+      }
+      out.writeString(dto.getUsername());
+      if (dto.getTeamName() != null) {
+        out.writeString(dto.getTeamName());
+      }
+    }
+    return out;
+  }
+
+  static Page<MemberTeamDto> decode(byte[] bytes, Pageable pageable) {
+    Decoder in = new Decoder(bytes);
+    long total = in.readVarLong();
+    byte totalKind = in.readByte();
+    int size = (int) in.readVarLong();
+    List<MemberTeamDto> content = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      byte flags = in.readByte();
+      Long memberId = in.readVarLong();
+      int age = (int) in.readVarLong();
+      Long teamId = (flags & TEAM_ID) != 0 ? in.readVarLong() : null;
+      String username = in.readString();
+      String teamName = (flags & TEAM_NAME) != 0 ? in.readString() : null;
+      content.add(new MemberTeamDto(memberId, username, age, teamId, teamName));
+    }
+    if (totalKind == PLAIN_TOTAL) {
+      return new PageImpl<>(content, pageable, total);
+    }
+    return new CountedPage<>(content, pageable, total, totalKind == EXACT_TOTAL);
+  }
+
+  @Value
+  private static class Key {
+
+    String query;
+    MemberSearchKey searchKey;
+  }
+
+  private static class Entry {
+
+    private final int[] blocks;
+    private final int length;
+
+    private Entry(int[] blocks, int length) {
+      this.blocks = blocks;
+      this.length = length;
+    }
+  }
+
+  static class Encoder {
+
+    private byte[] bytes;
+    private int length;
+
+    Encoder(int capacity) {
+      this.bytes = new byte[capacity];
+    }
+
+    void writeByte(int value) {
+      ensure(1);
+      bytes[length++] = (byte) value;
+    }
+
+    /**
+     * 음수도 짧게 쓰도록 zigzag 로 바꾼다.
+     */
+    void writeVarLong(long value) {
+      long v = (value << 1) ^ (value >> 63);
+      ensure(10);
+      while ((v & ~0x7FL) != 0) {
+        bytes[length++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      bytes[length++] = (byte) v;
+    }
+
+    void writeString(String value) {
+      byte[] utf8 = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+      writeVarLong(value == null ? -1 : utf8.length);
+      ensure(utf8.length);
+      System.arraycopy(utf8, 0, bytes, length, utf8.length);
+      length += utf8.length;
+    }
+
+    private void ensure(int extra) {
+      if (length + extra > bytes.length) {
+        byte[] grown = new byte[Math.max(bytes.length * 2, length + extra)];
+        System.arraycopy(bytes, 0, grown, 0, length);
+        bytes = grown;
+      }
+    }
+  }
+
+  private static class Decoder {
+
+    private final byte[] bytes;
+    private int position;
+
+    private Decoder(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    private byte readByte() {
+      return bytes[position++];
+    }
+
+    private long readVarLong() {
+      long v = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = bytes[position++];
+        v |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return (v >>> 1) ^ -(v & 1);
+    }
+
+    private String readString() {
+      int length = (int) readVarLong();
+      if (length < 0) {
+        return null;
+      }
+      String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return value;
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.repository.outbox;
+
+import java.time.LocalDateTime;
+import lombok.Value;
+import study.querydsl.entity.OutboxEvent.ChangeType;
+
+@Value
+public class ChangeEvent {
+
+  long id;
+  String aggregate;
+  Long aggregateId;
+  ChangeType changeType;
+  LocalDateTime createdAt;
+  boolean local;
+
+  public boolean isBulk() {
+    return changeType == ChangeType.BULK_INSERT || changeType == ChangeType.BULK_UPDATE
+        || changeType == ChangeType.BULK_DELETE;
+  }
+}
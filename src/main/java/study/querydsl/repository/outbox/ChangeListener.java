@@ -0,0 +1,10 @@
+package study.querydsl.repository.outbox;
+
+/**
+ * outbox 에서 읽은 Member / Team 변경을 받는다. 모든 노드의 변경(자기 노드 것 포함)이 id 순으로 한 스레드에서 온다.
+ * 예외를 던지면 로그만 남기고 다음 리스너로 넘어간다.
+ */
+public interface ChangeListener {
+
+  void onChange(ChangeEvent event);
+}
@@ -0,0 +1,186 @@
+package study.querydsl.repository.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.OutboxEvent.ChangeType;
+
+/**
+ * outbox_event 를 id 순으로 주기적으로 읽어 {@link ChangeListener} 들에게 넘긴다.
+ * <p>
+ * 기동 시점의 마지막 id 부터 읽는다. IDENTITY id 는 커밋 순서와 다를 수 있어서, 작은 id 가 나중에 커밋되면 빈 자리(gap)가 생긴다.
+ * 빈 자리 뒤의 행은 바로 넘기되, 빈 자리가 gapTimeout 동안 채워지지 않을 때까지는 커서를 그 앞에 두고 다시 읽는다.
+ * 롤백으로 영원히 비는 id 는 gapTimeout 뒤에 건너뛴다.
+ * <p>
+ * 한 번에 읽은 행 중 aggregate 와 종류가 같은 bulk 변경은 첫 행만 넘긴다. 모두 읽기 전에 커밋된 것이므로 첫 행을 처리할 때
+ * (예: filter 재생성) 나머지도 이미 DB 에 있다. CSV import 처럼 batch 마다 bulk 행을 남기는 쓰기에서 재생성이 몰리지 않게 한다.
+ * <p>
+ * retention 보다 오래된 행은 지운다. 여러 노드가 같이 지워도 된다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.enabled", havingValue = "true")
+public class OutboxPoller {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final OutboxWriter outboxWriter;
+  private final ObjectProvider<ChangeListener> listeners;
+  private final Duration pollInterval;
+  private final int batchSize;
+  private final long gapTimeoutNanos;
+  private final Duration retention;
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "outbox-poller");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private long cursor;
+  private final NavigableSet<Long> seenAboveCursor = new TreeSet<>();
+  private long gapSince;
+  private long lastPurge;
+
+  private final AtomicLong lagMillis = new AtomicLong();
+  private final AtomicLong backlog = new AtomicLong();
+  private final Counter events;
+  private final Counter skippedGaps;
+  private final Timer polls;
+
+  public OutboxPoller(JdbcTemplate jdbcTemplate, OutboxWriter outboxWriter,
+      ObjectProvider<ChangeListener> listeners, MeterRegistry registry,
+      @Value("${app.outbox.poll-interval-ms:200}") long pollIntervalMillis,
+      @Value("${app.outbox.batch-size:500}") int batchSize,
+      @Value("${app.outbox.gap-timeout-ms:5000}") long gapTimeoutMillis,
+      @Value("${app.outbox.retention-ms:3600000}") long retentionMillis) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.outboxWriter = outboxWriter;
+    this.listeners = listeners;
+    this.pollInterval = Duration.ofMillis(pollIntervalMillis);
+    this.batchSize = batchSize;
+    this.gapTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMillis);
+    this.retention = Duration.ofMillis(retentionMillis);
+    this.events = Counter.builder("outbox.events").register(registry);
+    this.skippedGaps = Counter.builder("outbox.skipped.gaps")
+        .description("outbox ids given up after the gap timeout")
+        .register(registry);
+    this.polls = Timer.builder("outbox.poll").register(registry);
+    registry.gauge("outbox.lag", lagMillis);
+    registry.gauge("outbox.backlog", backlog);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    Long max = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from outbox_event", Long.class);
+    cursor = max == null ? 0 : max;
+    scheduler.scheduleWithFixedDelay(this::pollSafely, 0, pollInterval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    scheduler.shutdownNow();
+  }
+
+  private void pollSafely() {
+    try {
+      polls.record(this::poll);
+    } catch (RuntimeException e) {
+      log.warn("outbox poll failed", e);
+    }
+  }
+
+  /**
+   * 한 번 읽고 넘긴다. poller 스레드에서만 부른다.
+   */
+  void poll() {
+    List<ChangeEvent> batch = jdbcTemplate.query(
+        "select id, aggregate, aggregate_id, change_type, origin, created_at from outbox_event"
+            + " where id > ? order by id limit ?",
+        (rs, rowNum) -> new ChangeEvent(rs.getLong(1), rs.getString(2),
+            (Long) rs.getObject(3), ChangeType.valueOf(rs.getString(4)),
+            rs.getTimestamp(6).toLocalDateTime(), outboxWriter.getOrigin().equals(rs.getString(5))),
+        cursor, batchSize);
+
+    List<ChangeListener> targets = listeners.orderedStream().collect(Collectors.toList());
+    Set<String> bulkDelivered = new HashSet<>();
+    for (ChangeEvent event : batch) {
+      if (!seenAboveCursor.add(event.getId())) {
+        continue;
+      }
+      if (event.isBulk() && !bulkDelivered.add(event.getAggregate() + ":" + event.getChangeType())) {
+        events.increment();
+        continue;
+      }
+      for (ChangeListener listener : targets) {
+        try {
+          listener.onChange(event);
+        } catch (RuntimeException e) {
+          log.warn("change listener {} failed for {}", listener, event, e);
+        }
+      }
+      events.increment();
+      lagMillis.set(Duration.between(event.getCreatedAt(), LocalDateTime.now()).toMillis());
+    }
+    advanceCursor();
+    if (batch.isEmpty()) {
+      lagMillis.set(0);
+    }
+    if (batch.size() == batchSize) {
+      Long max = jdbcTemplate.queryForObject("select max(id) from outbox_event", Long.class);
+      backlog.set(max == null ? 0 : max - batch.get(batch.size() - 1).getId());
+    } else {
+      backlog.set(0);
+    }
+    purgeOldEvents();
+  }
+
+  private void advanceCursor() {
+    while (!seenAboveCursor.isEmpty()) {
+      if (seenAboveCursor.first() == cursor + 1) {
+        cursor = seenAboveCursor.pollFirst();
+        gapSince = 0;
+      } else if (gapSince == 0) {
+        gapSince = System.nanoTime();
+        return;
+      } else if (System.nanoTime() - gapSince >= gapTimeoutNanos) {
+        cursor++;
+        skippedGaps.increment();
+      } else {
+        return;
+      }
+    }
+  }
+
+  private void purgeOldEvents() {
+    long now = System.currentTimeMillis();
+    if (now - lastPurge < retention.toMillis() / 10) {
+      return;
+    }
+    lastPurge = now;
+    jdbcTemplate.update("delete from outbox_event where created_at < ?",
+        Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+  }
+}
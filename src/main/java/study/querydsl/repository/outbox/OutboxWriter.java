@@ -0,0 +1,144 @@
+package study.querydsl.repository.outbox;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.OutboxEvent.ChangeType;
+import study.querydsl.entity.Team;
+
+/**
+ * Member / Team 변경을 같은 트랜잭션 안에서 outbox_event 에 쓴다.
+ * <p>
+ * 엔티티 변경은 Hibernate insert/update/delete 이벤트(커밋 전)에서, JPQL bulk update/delete 는 호출하는 쪽이
+ * {@link #recordBulk(EntityManager, Class, ChangeType)} 로, JDBC 로 직접 쓰는 CSV import 는
+ * {@link #recordBulk(Connection, Class, ChangeType)} 로 남긴다. 세션의 JDBC 커넥션에 바로 쓰므로 flush 를 일으키지 않고,
+ * 트랜잭션이 롤백되면 outbox 행도 같이 사라진다.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.enabled", havingValue = "true")
+public class OutboxWriter implements PostInsertEventListener, PostUpdateEventListener,
+    PostDeleteEventListener {
+
+  private static final String INSERT_SQL = "insert into outbox_event "
+      + "(aggregate, aggregate_id, change_type, origin, created_at) values (?, ?, ?, ?, ?)";
+
+  private final EntityManagerFactory entityManagerFactory;
+  private final String origin = UUID.randomUUID().toString();
+
+  public OutboxWriter(EntityManagerFactory entityManagerFactory) {
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  @PostConstruct
+  public void register() {
+    EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_INSERT, this);
+    registry.appendListeners(EventType.POST_UPDATE, this);
+    registry.appendListeners(EventType.POST_DELETE, this);
+  }
+
+  /**
+   * 이 노드(JVM)의 id.
+   */
+  public String getOrigin() {
+    return origin;
+  }
+
+  public void recordBulk(EntityManager em, Class<?> entityClass, ChangeType changeType) {
+    String aggregate = aggregateOf(entityClass);
+    if (aggregate != null) {
+      write(em.unwrap(Session.class), aggregate, null, changeType);
+    }
+  }
+
+  /**
+   * 호출한 쪽의 트랜잭션에 같이 들어가도록 주어진 커넥션에 쓴다. 커밋은 호출한 쪽이 한다.
+   */
+  public void recordBulk(Connection connection, Class<?> entityClass, ChangeType changeType)
+      throws SQLException {
+    String aggregate = aggregateOf(entityClass);
+    if (aggregate != null) {
+      write(connection, aggregate, null, changeType);
+    }
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    record(event.getSession(), event.getPersister(), event.getId(), ChangeType.INSERT);
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    record(event.getSession(), event.getPersister(), event.getId(), ChangeType.UPDATE);
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    record(event.getSession(), event.getPersister(), event.getId(), ChangeType.DELETE);
+  }
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return false;
+  }
+
+  private void record(Session session, EntityPersister persister, Object id, ChangeType changeType) {
+    String aggregate = aggregateOf(persister.getMappedClass());
+    if (aggregate != null) {
+      write(session, aggregate, (Long) id, changeType);
+    }
+  }
+
+  private void write(Session session, String aggregate, Long aggregateId, ChangeType changeType) {
+    session.doWork(connection -> write(connection, aggregate, aggregateId, changeType));
+  }
+
+  private void write(Connection connection, String aggregate, Long aggregateId,
+      ChangeType changeType) throws SQLException {
+    try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+      insert.setString(1, aggregate);
+      if (aggregateId == null) {
+        insert.setNull(2, Types.BIGINT);
+      } else {
+        insert.setLong(2, aggregateId);
+      }
+      insert.setString(3, changeType.name());
+      insert.setString(4, origin);
+      insert.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+      insert.executeUpdate();
+    }
+  }
+
+  private static String aggregateOf(Class<?> entityClass) {
+    if (Member.class.isAssignableFrom(entityClass)) {
+      return "Member";
+    }
+    if (Team.class.isAssignableFrom(entityClass)) {
+      return "Team";
+    }
+    return null;
+  }
+}
@@ -0,0 +1,187 @@
+package study.querydsl.repository.shard;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberSearchQuery;
+import study.querydsl.repository.support.QueryDeadline;
+
+/**
+ * team_id 로 파티셔닝한 회원 샤드들에 대한 검색.
+ * <p>
+ * 회원은 team_id % N 번 샤드에 있고(팀이 없으면 0번), 팀 테이블은 모든 샤드에 같은 id 로 복제되어 있다고 가정한다.
+ * member id 는 샤드 간에 겹치지 않아야 한다(샤드별 id 대역 등). teamName 조건이 있으면 그 팀이 있는 샤드에만 보내고,
+ * 없으면 모든 샤드에 병렬로 보낸 뒤 결과를 member id 순으로 병합한다.
+ * <p>
+ * 페이지 요청은 각 샤드에서 앞에서부터 offset + size 건을 가져와 병합한 뒤 offset 만큼 건너뛰고, 전체 건수는 샤드별 count 의 합이다.
+ */
+public class MemberShards {
+
+  private static final Comparator<MemberTeamDto> MEMBER_ID_ORDER =
+      Comparator.comparing(MemberTeamDto::getMemberId);
+
+  private final List<EntityManagerFactory> shards;
+  private final ExecutorService executor;
+
+  public MemberShards(List<EntityManagerFactory> shards) {
+    this.shards = shards;
+    this.executor = Executors.newFixedThreadPool(shards.size() * 4);
+  }
+
+  public void close() {
+    executor.shutdown();
+  }
+
+  public int size() {
+    return shards.size();
+  }
+
+  public EntityManagerFactory getShard(int index) {
+    return shards.get(index);
+  }
+
+  public int shardOf(Long teamId) {
+    return teamId == null ? 0 : (int) Math.floorMod(teamId, (long) shards.size());
+  }
+
+  public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    List<List<MemberTeamDto>> results = scatter(route(condition),
+        em -> MemberSearchQuery.search(em, condition));
+    return merge(results, 0, Integer.MAX_VALUE);
+  }
+
+  public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+    List<Integer> targets = route(condition);
+    Pageable head = PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize());
+    List<List<MemberTeamDto>> results = scatter(targets,
+        em -> MemberSearchQuery.search(em, condition, head));
+    List<MemberTeamDto> content = merge(results, (int) pageable.getOffset(), pageable.getPageSize());
+
+    return PageableExecutionUtils.getPage(content, pageable, () -> scatter(targets,
+        em -> MemberSearchQuery.count(em, condition)).stream().mapToLong(Long::longValue).sum());
+  }
+
+  /**
+   * teamName 이 있으면 이름이 같은 팀들이 있는 샤드만. 팀 테이블은 복제되어 있으므로 0번 샤드에서 찾는다.
+   */
+  List<Integer> route(MemberSearchCondition condition) {
+    if (StringUtils.isEmpty(condition.getTeamName())) {
+      List<Integer> all = new ArrayList<>(shards.size());
+      for (int i = 0; i < shards.size(); i++) {
+        all.add(i);
+      }
+      return all;
+    }
+    List<Long> teamIds = execute(0, em -> em
+        .createQuery("select t.id from Team t where t.name = :name", Long.class)
+        .setParameter("name", condition.getTeamName())
+        .getResultList());
+    if (teamIds.isEmpty()) {
+      return List.of(0);
+    }
+    return teamIds.stream().map(this::shardOf).distinct().sorted().collect(Collectors.toList());
+  }
+
+  private <T> List<T> scatter(List<Integer> targets, Function<EntityManager, T> work) {
+    if (targets.size() == 1) {
+      return List.of(execute(targets.get(0), work));
+    }
+    // 요청 마감 시간은 요청 스레드에 묶여 있으므로 남은 시간을 작업 스레드로 넘긴다
+    long remainingNanos = QueryDeadline.remainingNanos(Long.MAX_VALUE);
+    List<CompletableFuture<T>> futures = targets.stream()
+        .map(shard -> CompletableFuture.supplyAsync(() -> {
+          if (remainingNanos != Long.MAX_VALUE) {
+            QueryDeadline.start(Duration.ofNanos(remainingNanos));
+          }
+          try {
+            return execute(shard, work);
+          } finally {
+            QueryDeadline.clear();
+          }
+        }, executor))
+        .collect(Collectors.toList());
+    try {
+      return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private <T> T execute(int shard, Function<EntityManager, T> work) {
+    EntityManager em = shards.get(shard).createEntityManager();
+    try {
+      return work.apply(em);
+    } finally {
+      em.close();
+    }
+  }
+
+  /**
+   * 샤드별로 member id 순인 결과를 k-way 병합해서 offset 부터 limit 건을 돌려준다.
+   */
+  private List<MemberTeamDto> merge(List<List<MemberTeamDto>> sortedResults, int offset, int limit) {
+    PriorityQueue<Cursor> queue = new PriorityQueue<>();
+    for (List<MemberTeamDto> result : sortedResults) {
+      if (!result.isEmpty()) {
+        queue.add(new Cursor(result));
+      }
+    }
+    List<MemberTeamDto> merged = new ArrayList<>();
+    int skipped = 0;
+    while (!queue.isEmpty() && merged.size() < limit) {
+      Cursor cursor = queue.poll();
+      if (skipped < offset) {
+        skipped++;
+      } else {
+        merged.add(cursor.current());
+      }
+      if (cursor.advance()) {
+        queue.add(cursor);
+      }
+    }
+    return merged;
+  }
+
+  private static class Cursor implements Comparable<Cursor> {
+
+    private final List<MemberTeamDto> rows;
+    private int position;
+
+    Cursor(List<MemberTeamDto> rows) {
+      this.rows = rows;
+    }
+
+    MemberTeamDto current() {
+      return rows.get(position);
+    }
+
+    boolean advance() {
+      return ++position < rows.size();
+    }
+
+    @Override
+    public int compareTo(Cursor other) {
+      return MEMBER_ID_ORDER.compare(current(), other.current());
+    }
+  }
+}
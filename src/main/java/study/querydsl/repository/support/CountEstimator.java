@@ -0,0 +1,136 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.ComparablePath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.data.support.PageableExecutionUtils;
+
+/**
+ * {@link CountPolicy} 에 따라 페이지 total 을 구한다. count 쿼리의 루트 별칭은 엔티티 기본 Q 타입(예: member)과 같아야 한다.
+ * <p>
+ * 조건에 맞는 id 를 threshold + 1 개까지만 읽어 보고, 넘으면 마지막으로 읽은 id 아래쪽 최대 maxSampleRows 행을 표본으로
+ * 조건의 선택도를 구해 테이블 행 수 통계에 곱한다. 표본 구간이 조건과 상관없이 id 범위 전체로 늘어나지 않으므로 조건이 아주
+ * 좁아도 읽는 행이 maxSampleRows 를 넘지 않는다. 대신 조건에 맞는 행이 maxSampleRows 행에 하나도 안 될 만큼 드물면 표본에
+ * 적어도 한 건(마지막 id)이 들어가므로 total 을 크게 잡는다. 표본이 id 한쪽 구간이므로 조건과 id 가 상관이 크면 추정이 치우친다.
+ */
+public class CountEstimator {
+
+  public static final long DEFAULT_MAX_SAMPLE_ROWS = 10_000;
+
+  private static final String TABLE_ROWS_SQL =
+      "select row_count_estimate from information_schema.tables where upper(table_name) = upper(?)";
+
+  private final EntityManager entityManager;
+  private final JPAQueryFactory queryFactory;
+  private final Class<?> domainClass;
+  private final PathBuilder<Object> root;
+  private final ComparablePath<Comparable> id;
+  private final long maxSampleRows;
+
+  public CountEstimator(EntityManager entityManager, JPAQueryFactory queryFactory,
+      Class<?> domainClass) {
+    this(entityManager, queryFactory, domainClass, DEFAULT_MAX_SAMPLE_ROWS);
+  }
+
+  public CountEstimator(EntityManager entityManager, JPAQueryFactory queryFactory,
+      Class<?> domainClass, long maxSampleRows) {
+    if (maxSampleRows < 1 || maxSampleRows > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("maxSampleRows must be between 1 and " + Integer.MAX_VALUE);
+    }
+    JpaEntityInformation<?, ?> entityInformation =
+        JpaEntityInformationSupport.getEntityInformation(domainClass, entityManager);
+    EntityPath<?> path = SimpleEntityPathResolver.INSTANCE.createPath(entityInformation.getJavaType());
+    this.entityManager = entityManager;
+    this.queryFactory = queryFactory;
+    this.domainClass = domainClass;
+    this.root = new PathBuilder<>(path.getType(), path.getMetadata());
+    this.id = root.getComparable(entityInformation.getIdAttribute().getName(), Comparable.class);
+    this.maxSampleRows = maxSampleRows;
+  }
+
+  /**
+   * countPolicy 가 exact 면 countQuery 로 센 PageImpl, 아니면 {@link CountedPage} 를 돌려준다.
+   */
+  public <T> Page<T> page(List<T> content, Pageable pageable, JPAQuery<?> countQuery,
+      CountPolicy countPolicy) {
+    if (countPolicy.isExact()) {
+      return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
+    }
+    boolean[] exact = {true};
+    Page<T> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+      long threshold = countPolicy.getThreshold();
+      JPAQuery<Comparable> probe = QueryDeadline.apply(countQuery.clone().select(id), entityManager);
+      probe.getMetadata().clearOrderBy();
+      List<Comparable> ids = probe.orderBy(id.asc()).limit(threshold + 1).fetch();
+      if (ids.size() <= threshold) {
+        return ids.size();
+      }
+      exact[0] = false;
+      return estimateCount(ids, threshold);
+    });
+    return new CountedPage<>(page.getContent(), pageable, page.getTotalElements(), exact[0]);
+  }
+
+  /**
+   * ids 는 조건에 맞는 id 를 오름차순으로 threshold + 1 개 읽은 것. 통계를 못 얻으면 threshold + 1 (최소값)을 돌려준다.
+   */
+  @SuppressWarnings("unchecked")
+  private long estimateCount(List<Comparable> ids, long threshold) {
+    Comparable last = ids.get(ids.size() - 1);
+    List<Comparable> lower = QueryDeadline.apply(queryFactory.select(id), entityManager)
+        .from(root)
+        .where(id.loe(last))
+        .orderBy(id.desc())
+        .offset(maxSampleRows - 1)
+        .limit(1)
+        .fetch();
+    long sampled;
+    long matched;
+    if (lower.isEmpty()) {
+      sampled = QueryDeadline.apply(queryFactory.select(root.count()), entityManager)
+          .from(root)
+          .where(id.loe(last))
+          .fetchOne();
+      matched = ids.size();
+    } else {
+      sampled = maxSampleRows;
+      matched = ids.stream().filter(sampledId -> sampledId.compareTo(lower.get(0)) >= 0).count();
+    }
+    long tableRows = estimateTableRows();
+    if (sampled == 0 || tableRows <= 0) {
+      return threshold + 1;
+    }
+    return Math.max(threshold + 1, Math.round(tableRows * (double) matched / sampled));
+  }
+
+  /**
+   * DB 가 관리하는 테이블 행 수 추정치. 지금은 H2 의 information_schema 만 읽고, 없으면 -1.
+   */
+  private long estimateTableRows() {
+    SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory()
+        .unwrap(SessionFactoryImplementor.class);
+    EntityPersister persister = sessionFactory.getMetamodel().entityPersister(domainClass);
+    if (!(sessionFactory.getJdbcServices().getDialect() instanceof H2Dialect)
+        || !(persister instanceof AbstractEntityPersister)) {
+      return -1;
+    }
+    String tableName = ((AbstractEntityPersister) persister).getTableName();
+    List<?> rows = QueryEvents.nativeList("native", TABLE_ROWS_SQL, () -> QueryDeadline.apply(
+        entityManager.createNativeQuery(TABLE_ROWS_SQL), entityManager)
+        .setParameter(1, tableName));
+    return rows.isEmpty() || rows.get(0) == null ? -1 : ((Number) rows.get(0)).longValue();
+  }
+}
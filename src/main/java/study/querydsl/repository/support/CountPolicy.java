@@ -0,0 +1,38 @@
+package study.querydsl.repository.support;
+
+/**
+ * 페이지 total 을 어떻게 구할지.
+ * <p>
+ * {@link #exact()} 는 항상 count 쿼리를 실행한다. {@link #exactUpTo(long)} 는 조건에 맞는 id 를 threshold + 1 개까지만 읽어 보고,
+ * threshold 이하이면 그 개수가 정확한 total 이다. 넘으면 count 를 하지 않고 추정한다.
+ * 조건 없는 검색처럼 결과가 아주 많을 때 전체 count 를 피하기 위한 것이다.
+ */
+public final class CountPolicy {
+
+  private static final CountPolicy EXACT = new CountPolicy(Long.MAX_VALUE);
+
+  private final long threshold;
+
+  private CountPolicy(long threshold) {
+    this.threshold = threshold;
+  }
+
+  public static CountPolicy exact() {
+    return EXACT;
+  }
+
+  public static CountPolicy exactUpTo(long threshold) {
+    if (threshold < 1 || threshold >= Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("threshold must be between 1 and " + (Integer.MAX_VALUE - 1));
+    }
+    return new CountPolicy(threshold);
+  }
+
+  public boolean isExact() {
+    return threshold == Long.MAX_VALUE;
+  }
+
+  public long getThreshold() {
+    return threshold;
+  }
+}
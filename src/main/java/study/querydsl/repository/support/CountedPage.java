@@ -0,0 +1,22 @@
+package study.querydsl.repository.support;
+
+import java.util.List;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * total 이 정확한 값인지 추정치인지 함께 담은 페이지. JSON 에는 totalExact 로 나간다.
+ */
+public class CountedPage<T> extends PageImpl<T> {
+
+  private final boolean totalExact;
+
+  public CountedPage(List<T> content, Pageable pageable, long total, boolean totalExact) {
+    super(content, pageable, total);
+    this.totalExact = totalExact;
+  }
+
+  public boolean isTotalExact() {
+    return totalExact;
+  }
+}
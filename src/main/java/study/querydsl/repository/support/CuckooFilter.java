@@ -0,0 +1,174 @@
+package study.querydsl.repository.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 문자열 집합의 cuckoo filter. "확실히 없음" 과 "있을 수도 있음" 만 답한다.
+ * <p>
+ * 버킷마다 16비트 fingerprint 4칸을 두고, 값 하나는 두 후보 버킷 중 한 곳에 들어간다(partial-key cuckoo hashing).
+ * Bloom filter 와 달리 {@link #remove(String)} 를 지원한다. 두 후보 버킷에 이미 같은 fingerprint 가 있으면 넣지 않으므로,
+ * 같은 값을 여러 번 넣어도 한 칸만 쓰고 한 번 지우면 없어진다. 같은 fingerprint 를 가진 다른 값도 그 칸을 같이 쓰므로,
+ * 지우면 그 값도 "없음" 이 될 수 있다(약 0.01%). 지우는 쪽은 이 위험을 받아들일 수 있을 때만 지운다.
+ * 버킷 수를 2의 거듭제곱으로 올리므로 원소당 2~4 바이트를 쓰고, false positive 비율은 약 0.01% 다.
+ * <p>
+ * 자리가 없어 넣지 못하면 saturated 가 되고, 그 뒤로는 항상 "있을 수도 있음" 을 답한다. 틀린 "없음" 을 내지 않기 위해서다.
+ * 모든 메서드는 synchronized 다.
+ */
+public class CuckooFilter {
+
+  private static final int SLOTS = 4;
+  private static final int MAX_KICKS = 500;
+
+  private final short[] table;
+  private final int bucketMask;
+  private long size;
+  private boolean saturated;
+
+  public CuckooFilter(long expectedEntries) {
+    long buckets = Math.max(1, (long) Math.ceil(expectedEntries / (SLOTS * 0.95)));
+    long rounded = buckets <= 1 ? 1 : Long.highestOneBit(buckets - 1) << 1;
+    if (rounded * SLOTS > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many entries: " + expectedEntries);
+    }
+    this.table = new short[(int) rounded * SLOTS];
+    this.bucketMask = (int) rounded - 1;
+  }
+
+  public synchronized boolean mightContain(String value) {
+    if (saturated) {
+      return true;
+    }
+    long hash = hash(value);
+    short fingerprint = fingerprint(hash);
+    int i1 = index(hash);
+    int i2 = alternate(i1, fingerprint);
+    return contains(i1, fingerprint) || contains(i2, fingerprint);
+  }
+
+  public synchronized void put(String value) {
+    if (saturated) {
+      return;
+    }
+    long hash = hash(value);
+    short fingerprint = fingerprint(hash);
+    int i1 = index(hash);
+    int i2 = alternate(i1, fingerprint);
+    if (contains(i1, fingerprint) || contains(i2, fingerprint)) {
+      return;
+    }
+    if (insert(i1, fingerprint) || insert(i2, fingerprint)) {
+      size++;
+      return;
+    }
+    int bucket = ThreadLocalRandom.current().nextBoolean() ? i1 : i2;
+    for (int kick = 0; kick < MAX_KICKS; kick++) {
+      int slot = bucket * SLOTS + ThreadLocalRandom.current().nextInt(SLOTS);
+      short evicted = table[slot];
+      table[slot] = fingerprint;
+      fingerprint = evicted;
+      bucket = alternate(bucket, fingerprint);
+      if (insert(bucket, fingerprint)) {
+        size++;
+        return;
+      }
+    }
+    saturated = true;
+  }
+
+  /**
+   * 넣은 적 없는 값을 지우면 다른 값의 fingerprint 를 지울 수 있다. 실제로 넣었던 값만 지운다.
+   */
+  public synchronized boolean remove(String value) {
+    if (saturated) {
+      return false;
+    }
+    long hash = hash(value);
+    short fingerprint = fingerprint(hash);
+    int i1 = index(hash);
+    int i2 = alternate(i1, fingerprint);
+    if (delete(i1, fingerprint) || delete(i2, fingerprint)) {
+      size--;
+      return true;
+    }
+    return false;
+  }
+
+  public synchronized long size() {
+    return size;
+  }
+
+  public synchronized boolean isSaturated() {
+    return saturated;
+  }
+
+  public long getMemoryBytes() {
+    return (long) table.length * Short.BYTES;
+  }
+
+  private boolean contains(int bucket, short fingerprint) {
+    int base = bucket * SLOTS;
+    for (int i = 0; i < SLOTS; i++) {
+      if (table[base + i] == fingerprint) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean insert(int bucket, short fingerprint) {
+    int base = bucket * SLOTS;
+    for (int i = 0; i < SLOTS; i++) {
+      if (table[base + i] == 0) {
+        table[base + i] = fingerprint;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean delete(int bucket, short fingerprint) {
+    int base = bucket * SLOTS;
+    for (int i = 0; i < SLOTS; i++) {
+      if (table[base + i] == fingerprint) {
+        table[base + i] = 0;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int index(long hash) {
+    return (int) hash & bucketMask;
+  }
+
+  /**
+   * i1 과 i2 는 서로의 alternate 다. fingerprint 만으로 다른 후보 버킷을 찾으므로 원래 값 없이 옮길 수 있다.
+   */
+  private int alternate(int bucket, short fingerprint) {
+    return (bucket ^ (int) mix(fingerprint)) & bucketMask;
+  }
+
+  /**
+   * 0 은 빈 칸이므로 fingerprint 로 쓰지 않는다.
+   */
+  private static short fingerprint(long hash) {
+    short fingerprint = (short) (hash >>> 48);
+    return fingerprint == 0 ? 1 : fingerprint;
+  }
+
+  private static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+    z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return z ^ (z >>> 33);
+  }
+}
@@ -0,0 +1,86 @@
+package study.querydsl.repository.support;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 힙 밖(direct ByteBuffer)에 잡은 고정 크기 블록 영역.
+ * <p>
+ * 처음에 capacity 만큼 한 번만 할당하고 blockSize 단위 블록으로 나눠 쓴다. 값 하나는 여러 블록에 나눠 담고,
+ * 어느 블록들을 썼는지(int[])만 힙에 남는다. 해제한 블록은 free list 로 돌아가 다시 쓰므로 GC 가 볼 객체가 늘지 않는다.
+ * <p>
+ * 스레드 안전하지 않다. 호출하는 쪽에서 잠금을 건다.
+ */
+public class OffHeapArena {
+
+  private final ByteBuffer memory;
+  private final int blockSize;
+  private final int[] freeBlocks;
+  private int freeCount;
+
+  public OffHeapArena(long capacity, int blockSize) {
+    if (blockSize <= 0 || capacity < blockSize || capacity / blockSize > Integer.MAX_VALUE / blockSize) {
+      throw new IllegalArgumentException("capacity=" + capacity + ", blockSize=" + blockSize);
+    }
+    int blocks = (int) (capacity / blockSize);
+    this.memory = ByteBuffer.allocateDirect(blocks * blockSize);
+    this.blockSize = blockSize;
+    this.freeBlocks = new int[blocks];
+    for (int i = 0; i < blocks; i++) {
+      freeBlocks[i] = blocks - 1 - i;
+    }
+    this.freeCount = blocks;
+  }
+
+  public int blocksFor(int length) {
+    return Math.max(1, (length + blockSize - 1) / blockSize);
+  }
+
+  public int getFreeBlocks() {
+    return freeCount;
+  }
+
+  public int getTotalBlocks() {
+    return freeBlocks.length;
+  }
+
+  public long getUsedBytes() {
+    return (long) (freeBlocks.length - freeCount) * blockSize;
+  }
+
+  /**
+   * 블록이 모자라면 null 을 돌려준다.
+   */
+  public int[] write(byte[] data, int length) {
+    int count = blocksFor(length);
+    if (count > freeCount) {
+      return null;
+    }
+    int[] blocks = new int[count];
+    int offset = 0;
+    for (int i = 0; i < count; i++) {
+      int block = freeBlocks[--freeCount];
+      blocks[i] = block;
+      int chunk = Math.min(blockSize, length - offset);
+      memory.put(block * blockSize, data, offset, chunk);
+      offset += chunk;
+    }
+    return blocks;
+  }
+
+  public byte[] read(int[] blocks, int length) {
+    byte[] data = new byte[length];
+    int offset = 0;
+    for (int block : blocks) {
+      int chunk = Math.min(blockSize, length - offset);
+      memory.get(block * blockSize, data, offset, chunk);
+      offset += chunk;
+    }
+    return data;
+  }
+
+  public void free(int[] blocks) {
+    for (int block : blocks) {
+      freeBlocks[freeCount++] = block;
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.AbstractJPAQuery;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.dao.QueryTimeoutException;
+
+/**
+ * 요청 단위 마감 시각(deadline). 요청 스레드에 묶어 두고, 쿼리마다 남은 시간을 JPA 쿼리 timeout 으로 건다.
+ * <p>
+ * JDBC query timeout 은 초 단위라 남은 시간을 올림해서 건다. 더 정확하게 끊기 위해 쿼리를 실행한 Hibernate 세션마다
+ * 마감 시각에 {@link Session#cancelQuery()} 를 예약해서 실행 중인 statement 를 취소한다.
+ * 마감이 이미 지났으면 쿼리를 실행하지 않고 {@link QueryTimeoutException} 을 던진다.
+ * <p>
+ * 예약한 취소는 요청이 끝날 때({@link #clear()}) 취소하고 바로 큐에서 뺀다. 큐에 남겨 두면 마감 시각까지 세션을 붙잡는다.
+ */
+@Slf4j
+public final class QueryDeadline {
+
+  private static final ThreadLocal<QueryDeadline> CURRENT = new ThreadLocal<>();
+  private static final ScheduledThreadPoolExecutor CANCELLER = new ScheduledThreadPoolExecutor(1, r -> {
+    Thread thread = new Thread(r, "query-deadline-canceller");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  static {
+    CANCELLER.setRemoveOnCancelPolicy(true);
+  }
+
+  private final long deadlineNanos;
+  private final Set<Session> watched = Collections.newSetFromMap(new IdentityHashMap<>());
+  private final List<ScheduledFuture<?>> cancellations = new ArrayList<>();
+
+  private QueryDeadline(long deadlineNanos) {
+    this.deadlineNanos = deadlineNanos;
+  }
+
+  public static void start(Duration budget) {
+    clear();
+    CURRENT.set(new QueryDeadline(System.nanoTime() + budget.toNanos()));
+  }
+
+  public static void clear() {
+    QueryDeadline deadline = CURRENT.get();
+    if (deadline != null) {
+      deadline.cancellations.forEach(cancellation -> cancellation.cancel(false));
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * 남은 시간. 마감이 없으면 fallback 을 돌려준다.
+   */
+  public static long remainingNanos(long fallbackNanos) {
+    QueryDeadline deadline = CURRENT.get();
+    return deadline == null ? fallbackNanos
+        : Math.min(fallbackNanos, Math.max(0, deadline.deadlineNanos - System.nanoTime()));
+  }
+
+  public static <Q extends AbstractJPAQuery<?, ?>> Q apply(Q query, EntityManager em) {
+    Integer timeoutSeconds = timeoutSeconds(em);
+    if (timeoutSeconds != null) {
+      query.setHint(QueryHints.HINT_TIMEOUT, timeoutSeconds);
+    }
+    return query;
+  }
+
+  public static <Q extends Query> Q apply(Q query, EntityManager em) {
+    Integer timeoutSeconds = timeoutSeconds(em);
+    if (timeoutSeconds != null) {
+      query.setHint(QueryHints.HINT_TIMEOUT, timeoutSeconds);
+    }
+    return query;
+  }
+
+  /**
+   * 아직 실행되지 않은 취소 예약 수.
+   */
+  static int pendingCancellations() {
+    return CANCELLER.getQueue().size();
+  }
+
+  private static Integer timeoutSeconds(EntityManager em) {
+    QueryDeadline deadline = CURRENT.get();
+    if (deadline == null) {
+      return null;
+    }
+    long remaining = deadline.deadlineNanos - System.nanoTime();
+    if (remaining <= 0) {
+      throw new QueryTimeoutException("Request deadline exceeded before query execution");
+    }
+    deadline.watch(em.unwrap(Session.class), remaining);
+    return (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining + TimeUnit.SECONDS.toNanos(1) - 1));
+  }
+
+  private void watch(Session session, long remainingNanos) {
+    if (watched.add(session)) {
+      cancellations.add(CANCELLER.schedule(() -> cancel(session), remainingNanos, TimeUnit.NANOSECONDS));
+    }
+  }
+
+  private static void cancel(Session session) {
+    try {
+      if (session.isOpen()) {
+        session.cancelQuery();
+      }
+    } catch (RuntimeException e) {
+      log.debug("failed to cancel query at request deadline", e);
+    }
+  }
+}
@@ -0,0 +1,229 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.dml.DMLClause;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.servlet.http.HttpServletRequest;
+import org.hibernate.BaseSessionEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * {@link QueryExecutionEvent} 를 채우는 도구.
+ * <p>
+ * JDBC 실행 시간은 Hibernate 세션 이벤트({@link JdbcTimingListener})로 재고, 이벤트를 기록하는 쿼리가 실행되는 동안만
+ * 스레드에 누적한다. 호출한 endpoint 는 요청 스레드의 핸들러 매핑 패턴(예: GET /v2/members)이고, 요청 밖이면 비어 있다.
+ */
+public final class QueryEvents {
+
+  private static final ThreadLocal<long[]> JDBC_TIMING = new ThreadLocal<>();
+
+  private QueryEvents() {
+  }
+
+  /**
+   * 미리 만들어 둔 JPQL 을 실행한다. create 는 쿼리를 만들고 파라미터까지 바인딩해서 돌려준다.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> List<T> list(String kind, String jpql, String predicateFields,
+      Supplier<? extends TypedQuery<T>> create) {
+    return (List<T>) record(kind, jpql, predicateFields, create);
+  }
+
+  /**
+   * 네이티브 SQL 을 실행한다. jpql 자리에 SQL 이 남는다.
+   */
+  public static List<?> nativeList(String kind, String sql, Supplier<? extends Query> create) {
+    return record(kind, sql, "", create);
+  }
+
+  /**
+   * Querydsl update / delete 절을 실행하고 바뀐 행 수를 rowCount 로 남긴다. JPQL 은 기록할 때만 직렬화하고,
+   * 직렬화와 Hibernate 쿼리 생성은 나누지 않고 translation 에 합친다.
+   */
+  public static long execute(String kind, DMLClause<?> clause, Predicate... where) {
+    QueryExecutionEvent event = new QueryExecutionEvent();
+    if (!event.isEnabled()) {
+      return clause.execute();
+    }
+    event.begin();
+    long start = System.nanoTime();
+    long[] timing = startJdbcTiming();
+    long rows;
+    try {
+      rows = clause.execute();
+    } finally {
+      stopJdbcTiming();
+    }
+    long done = System.nanoTime();
+    event.end();
+    if (event.shouldCommit()) {
+      commit(event, kind, clause.toString(), predicateFields(ExpressionUtils.allOf(where)), rows, 0,
+          done - start - timing[0], timing[0], 0);
+    }
+    return rows;
+  }
+
+  private static List<?> record(String kind, String jpql, String predicateFields,
+      Supplier<? extends Query> create) {
+    QueryExecutionEvent event = new QueryExecutionEvent();
+    if (!event.isEnabled()) {
+      return create.get().getResultList();
+    }
+    event.begin();
+    long start = System.nanoTime();
+    Query query = create.get();
+    long created = System.nanoTime();
+    long[] timing = startJdbcTiming();
+    List<?> rows;
+    try {
+      rows = query.getResultList();
+    } finally {
+      stopJdbcTiming();
+    }
+    long done = System.nanoTime();
+    event.end();
+    if (event.shouldCommit()) {
+      commit(event, kind, jpql, predicateFields, rows.size(), 0, created - start, timing[0],
+          done - created - timing[0]);
+    }
+    return rows;
+  }
+
+  static long[] startJdbcTiming() {
+    long[] timing = new long[2];
+    JDBC_TIMING.set(timing);
+    return timing;
+  }
+
+  static void stopJdbcTiming() {
+    JDBC_TIMING.remove();
+  }
+
+  static void commit(QueryExecutionEvent event, String kind, String jpql, String predicateFields,
+      long rowCount, long serialization, long translation, long jdbc, long hydration) {
+    event.kind = kind;
+    event.jpql = jpql;
+    event.predicateFields = predicateFields;
+    event.rowCount = rowCount;
+    event.serialization = Math.max(0, serialization);
+    event.translation = Math.max(0, translation);
+    event.jdbc = jdbc;
+    event.hydration = Math.max(0, hydration);
+    event.endpoint = endpoint();
+    event.commit();
+  }
+
+  /**
+   * where 절에 나오는 경로를 이름순으로 쉼표로 잇는다. 예: member.age,team.name
+   */
+  static String predicateFields(Predicate where) {
+    if (where == null) {
+      return "";
+    }
+    Set<String> fields = new TreeSet<>();
+    where.accept(PathCollector.INSTANCE, fields);
+    return String.join(",", fields);
+  }
+
+  private static String endpoint() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (!(attributes instanceof ServletRequestAttributes)) {
+      return null;
+    }
+    HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+  }
+
+  /**
+   * hibernate.session.events.auto 로 세션마다 만들어진다.
+   */
+  public static class JdbcTimingListener extends BaseSessionEventListener {
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+      long[] timing = JDBC_TIMING.get();
+      if (timing != null) {
+        timing[1] = System.nanoTime();
+      }
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+      long[] timing = JDBC_TIMING.get();
+      if (timing != null && timing[1] != 0) {
+        timing[0] += System.nanoTime() - timing[1];
+        timing[1] = 0;
+      }
+    }
+  }
+
+  private enum PathCollector implements Visitor<Void, Set<String>> {
+    INSTANCE;
+
+    @Override
+    public Void visit(Constant<?> expr, Set<String> fields) {
+      return null;
+    }
+
+    @Override
+    public Void visit(FactoryExpression<?> expr, Set<String> fields) {
+      expr.getArgs().forEach(arg -> arg.accept(this, fields));
+      return null;
+    }
+
+    @Override
+    public Void visit(Operation<?> expr, Set<String> fields) {
+      expr.getArgs().forEach(arg -> arg.accept(this, fields));
+      return null;
+    }
+
+    @Override
+    public Void visit(ParamExpression<?> expr, Set<String> fields) {
+      return null;
+    }
+
+    @Override
+    public Void visit(Path<?> expr, Set<String> fields) {
+      fields.add(expr.toString());
+      return null;
+    }
+
+    @Override
+    public Void visit(SubQueryExpression<?> expr, Set<String> fields) {
+      Predicate where = expr.getMetadata().getWhere();
+      if (where != null) {
+        where.accept(this, fields);
+      }
+      return null;
+    }
+
+    @Override
+    public Void visit(TemplateExpression<?> expr, Set<String> fields) {
+      for (Object arg : expr.getArgs()) {
+        if (arg instanceof Expression) {
+          ((Expression<?>) arg).accept(this, fields);
+        }
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package study.querydsl.repository.support;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 쿼리 한 번의 JFR 이벤트. 기록 중이 아니면 만들기만 하고 아무것도 하지 않는다.
+ * <p>
+ * 시간은 나노초. serialization 은 Querydsl 이 JPQL 을 만드는 시간, translation 은 Hibernate 가 JPQL 을 SQL 로 바꾸는
+ * 시간(쿼리 플랜 캐시에 있으면 조회만), jdbc 는 statement 실행, hydration 은 결과를 읽어 객체로 만드는 시간이다.
+ * 미리 만들어 둔 JPQL 은 serialization 이 0 이다. update / delete 의 rowCount 는 바뀐 행 수이고, native 는 jpql 에
+ * SQL 을 남긴다.
+ */
+@Name("study.querydsl.QueryExecution")
+@Label("Query Execution")
+@Category({"Querydsl", "Repository"})
+@StackTrace(false)
+public class QueryExecutionEvent extends Event {
+
+  @Label("Kind")
+  @Description("list, one, count, results, update, delete, native")
+  String kind;
+
+  @Label("JPQL")
+  String jpql;
+
+  @Label("Predicate Fields")
+  String predicateFields;
+
+  @Label("Row Count")
+  long rowCount;
+
+  @Label("Serialization")
+  @Timespan
+  long serialization;
+
+  @Label("Translation")
+  @Timespan
+  long translation;
+
+  @Label("JDBC Execution")
+  @Timespan
+  long jdbc;
+
+  @Label("Hydration")
+  @Timespan
+  long hydration;
+
+  @Label("Endpoint")
+  String endpoint;
+}
@@ -16,7 +16,6 @@ import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
-import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
 
@@ -27,6 +26,7 @@ public abstract class Querydsl4RepositorySupport {
   private Querydsl querydsl;
   private EntityManager entityManager;
   private JPAQueryFactory queryFactory;
+  private CountEstimator countEstimator;
 
   public Querydsl4RepositorySupport(Class<?> domainClass) {
     Assert.notNull(domainClass, "Domain class must not be null!");
@@ -41,9 +41,10 @@ public abstract class Querydsl4RepositorySupport {
     SimpleEntityPathResolver resolver = SimpleEntityPathResolver.INSTANCE;
     EntityPath path = resolver.createPath(entityInformation.getJavaType());
     this.entityManager = entityManager;
-    this.querydsl = new Querydsl(entityManager, new
-        PathBuilder<Object>(path.getType(), path.getMetadata()));
-    this.queryFactory = new JPAQueryFactory(entityManager);
+    PathBuilder<Object> root = new PathBuilder<Object>(path.getType(), path.getMetadata());
+    this.querydsl = new Querydsl(entityManager, root);
+    this.queryFactory = new RecordingJPAQueryFactory(entityManager);
+    this.countEstimator = new CountEstimator(entityManager, queryFactory, domainClass);
   }
 
   @PostConstruct
@@ -67,30 +68,43 @@ public abstract class Querydsl4RepositorySupport {
   }
 
   protected <T> JPAQuery<T> select(Expression<T> expr) {
-    return getQueryFactory().select(expr);
+    return QueryDeadline.apply(getQueryFactory().select(expr), entityManager);
   }
 
   protected <T> JPAQuery<T> selectFrom(EntityPath<T> from) {
-    return getQueryFactory().selectFrom(from);
+    return QueryDeadline.apply(getQueryFactory().selectFrom(from), entityManager);
   }
 
   protected <T> Page<T> applyPagination(Pageable pageable,
       Function<JPAQueryFactory, JPAQuery> contentQuery) {
-    JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+    return applyPagination(pageable, contentQuery, CountPolicy.exact());
+  }
+
+  /**
+   * countPolicy 가 exact 가 아니면 결과가 {@link CountedPage} 이고, total 이 추정치인지 알려 준다.
+   */
+  protected <T> Page<T> applyPagination(Pageable pageable,
+      Function<JPAQueryFactory, JPAQuery> contentQuery, CountPolicy countPolicy) {
+    JPAQuery jpaQuery = QueryDeadline.apply(contentQuery.apply(getQueryFactory()), entityManager);
+    JPAQuery countQuery = jpaQuery.clone();
     List<T> content = getQuerydsl().applyPagination(pageable,
         jpaQuery).fetch();
-    return PageableExecutionUtils.getPage(content, pageable,
-        jpaQuery::fetchCount);
+    return countEstimator.page(content, pageable, countQuery, countPolicy);
   }
 
   protected <T> Page<T> applyPagination(Pageable pageable,
       Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
       JPAQuery> countQuery) {
-    JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+    return applyPagination(pageable, contentQuery, countQuery, CountPolicy.exact());
+  }
+
+  protected <T> Page<T> applyPagination(Pageable pageable,
+      Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
+      JPAQuery> countQuery, CountPolicy countPolicy) {
+    JPAQuery jpaContentQuery = QueryDeadline.apply(contentQuery.apply(getQueryFactory()), entityManager);
     List<T> content = getQuerydsl().applyPagination(pageable,
         jpaContentQuery).fetch();
-    JPAQuery countResult = countQuery.apply(getQueryFactory());
-    return PageableExecutionUtils.getPage(content, pageable,
-        countResult::fetchCount);
+    JPAQuery countResult = QueryDeadline.apply(countQuery.apply(getQueryFactory()), entityManager);
+    return countEstimator.page(content, pageable, countResult, countPolicy);
   }
 }
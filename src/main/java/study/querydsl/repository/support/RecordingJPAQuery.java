@@ -0,0 +1,135 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+/**
+ * 실행할 때 {@link QueryExecutionEvent} 를 남기는 JPAQuery. 기록 중이 아니면 JPAQuery 와 똑같이 동작한다.
+ * <p>
+ * fetch / fetchOne 은 JPQL 직렬화, Hibernate 쿼리 생성, 실행을 나눠서 잰다. 단계를 나누려고 JPQL 을 한 번 더 직렬화하므로
+ * translation 은 쿼리 생성 시간에서 직렬화 시간을 뺀 값이다. fetchCount / fetchResults 는 JDBC 시간만 따로 재고
+ * 나머지는 translation 에 합친다.
+ */
+public class RecordingJPAQuery<T> extends JPAQuery<T> {
+
+  public RecordingJPAQuery(EntityManager em) {
+    super(em);
+  }
+
+  public RecordingJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata) {
+    super(em, templates, metadata);
+  }
+
+  @Override
+  public List<T> fetch() {
+    QueryExecutionEvent event = new QueryExecutionEvent();
+    if (!event.isEnabled()) {
+      return super.fetch();
+    }
+    return record(event, "list");
+  }
+
+  @Override
+  public T fetchOne() throws NonUniqueResultException {
+    QueryExecutionEvent event = new QueryExecutionEvent();
+    if (!event.isEnabled()) {
+      return super.fetchOne();
+    }
+    List<T> rows = record(event, "one");
+    if (rows.size() > 1) {
+      throw new NonUniqueResultException();
+    }
+    return rows.isEmpty() ? null : rows.get(0);
+  }
+
+  @Override
+  @SuppressWarnings("deprecation")
+  public long fetchCount() {
+    QueryExecutionEvent event = new QueryExecutionEvent();
+    if (!event.isEnabled()) {
+      return super.fetchCount();
+    }
+    long[] count = new long[1];
+    recordWhole(event, "count", () -> {
+      count[0] = super.fetchCount();
+      return 1L;
+    });
+    return count[0];
+  }
+
+  @Override
+  @SuppressWarnings("deprecation")
+  public QueryResults<T> fetchResults() {
+    QueryExecutionEvent event = new QueryExecutionEvent();
+    if (!event.isEnabled()) {
+      return super.fetchResults();
+    }
+    @SuppressWarnings("unchecked")
+    QueryResults<T>[] results = new QueryResults[1];
+    recordWhole(event, "results", () -> {
+      results[0] = super.fetchResults();
+      return (long) results[0].getResults().size();
+    });
+    return results[0];
+  }
+
+  @Override
+  public RecordingJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+    RecordingJPAQuery<T> q = new RecordingJPAQuery<>(entityManager, templates,
+        getMetadata().clone());
+    q.clone(this);
+    return q;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<T> record(QueryExecutionEvent event, String kind) {
+    event.begin();
+    long start = System.nanoTime();
+    String jpql = toString();
+    long serialized = System.nanoTime();
+    Query query = createQuery();
+    long created = System.nanoTime();
+    long[] timing = QueryEvents.startJdbcTiming();
+    List<T> rows;
+    try {
+      rows = query.getResultList();
+    } finally {
+      QueryEvents.stopJdbcTiming();
+    }
+    long done = System.nanoTime();
+    event.end();
+    if (event.shouldCommit()) {
+      long serialization = serialized - start;
+      QueryEvents.commit(event, kind, jpql, QueryEvents.predicateFields(getMetadata().getWhere()),
+          rows.size(), serialization, created - serialized - serialization, timing[0],
+          done - created - timing[0]);
+    }
+    return rows;
+  }
+
+  private void recordWhole(QueryExecutionEvent event, String kind, Supplier<Long> execution) {
+    event.begin();
+    long start = System.nanoTime();
+    long[] timing = QueryEvents.startJdbcTiming();
+    long rows;
+    try {
+      rows = execution.get();
+    } finally {
+      QueryEvents.stopJdbcTiming();
+    }
+    long done = System.nanoTime();
+    event.end();
+    if (event.shouldCommit()) {
+      QueryEvents.commit(event, kind, toString(),
+          QueryEvents.predicateFields(getMetadata().getWhere()), rows, 0,
+          done - start - timing[0], timing[0], 0);
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import javax.persistence.EntityManager;
+
+/**
+ * select / selectFrom / from 으로 {@link RecordingJPAQuery} 를 만드는 JPAQueryFactory.
+ */
+public class RecordingJPAQueryFactory extends JPAQueryFactory {
+
+  private final EntityManager entityManager;
+
+  public RecordingJPAQueryFactory(EntityManager entityManager) {
+    super(entityManager);
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public JPAQuery<?> query() {
+    return new RecordingJPAQuery<Void>(entityManager);
+  }
+}
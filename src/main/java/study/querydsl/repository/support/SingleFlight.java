@@ -0,0 +1,109 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.dao.QueryTimeoutException;
+
+/**
+ * 같은 키로 동시에 들어온 호출을 한 번의 실행으로 합친다(single-flight).
+ * <p>
+ * 먼저 들어온 호출(leader)이 자기 스레드에서 실제로 실행하고, 실행 중에 같은 키로 들어온 호출들은 그 결과를 기다려 공유한다.
+ * 실행이 끝나면 키를 지우므로 결과를 캐시하지는 않는다. 결과를 여러 스레드가 공유하므로 엔티티가 아닌 DTO 같은 값에만 쓴다.
+ * <p>
+ * 기다리는 쪽은 timeout 과 요청 마감 시간({@link QueryDeadline}) 중 짧은 시간 안에 결과가 오지 않으면 {@link QueryTimeoutException} 을 던지고, leader 가 실패하면 같은 예외를 받는다.
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+  private final Duration timeout;
+
+  private final Counter executions;
+  private final Counter shared;
+  private final Counter timeouts;
+  private final DistributionSummary waiters;
+
+  public SingleFlight(String name, Tags tags, Duration timeout, MeterRegistry registry) {
+    this.timeout = timeout;
+    this.executions = Counter.builder(name + ".executions")
+        .description("calls that actually ran")
+        .tags(tags)
+        .register(registry);
+    this.shared = Counter.builder(name + ".shared")
+        .description("calls that waited for an identical in-flight call")
+        .tags(tags)
+        .register(registry);
+    this.timeouts = Counter.builder(name + ".timeouts")
+        .description("waiting calls that gave up")
+        .tags(tags)
+        .register(registry);
+    this.waiters = DistributionSummary.builder(name + ".waiters")
+        .description("calls sharing one execution, per key")
+        .tags(tags)
+        .register(registry);
+    registry.gauge(name + ".in.flight", tags, calls, Map::size);
+  }
+
+  public V execute(K key, Supplier<V> loader) {
+    Call<V> call = new Call<>();
+    Call<V> inFlight = calls.putIfAbsent(key, call);
+    if (inFlight != null) {
+      return await(inFlight);
+    }
+
+    executions.increment();
+    try {
+      V value = loader.get();
+      call.result.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      call.result.completeExceptionally(e);
+      throw e;
+    } finally {
+      calls.remove(key, call);
+      waiters.record(call.waiters.get());
+    }
+  }
+
+  private V await(Call<V> call) {
+    call.waiters.incrementAndGet();
+    shared.increment();
+    long waitNanos = QueryDeadline.remainingNanos(timeout.toNanos());
+    try {
+      return call.result.get(waitNanos, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      timeouts.increment();
+      throw new QueryTimeoutException("Timed out after " + TimeUnit.NANOSECONDS.toMillis(waitNanos)
+          + " ms waiting for an identical in-flight query", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new QueryTimeoutException("Interrupted while waiting for an identical in-flight query", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  private static class Call<V> {
+
+    private final CompletableFuture<V> result = new CompletableFuture<>();
+    private final AtomicInteger waiters = new AtomicInteger();
+  }
+}
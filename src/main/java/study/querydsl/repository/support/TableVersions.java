@@ -0,0 +1,120 @@
+package study.querydsl.repository.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.outbox.ChangeEvent;
+import study.querydsl.repository.outbox.ChangeListener;
+
+/**
+ * Member / Team 테이블의 버전 카운터.
+ * <p>
+ * Hibernate 의 커밋 후(post-commit) insert/update/delete 이벤트마다 해당 테이블의 버전을 올린다.
+ * 커밋 전에 올리면 아직 옛 데이터를 읽은 응답이 새 버전으로 캐시될 수 있으므로 커밋 후에만 올린다.
+ * JPQL bulk update/delete 는 엔티티 이벤트를 거치지 않으므로 여기에 잡히지 않는다.
+ * outbox(app.outbox.enabled=true)가 켜져 있으면 다른 노드의 변경과 bulk 변경도 {@link #onChange(ChangeEvent)} 로 받는다.
+ * <p>
+ * 카운터는 메모리에만 있으므로 재시작하면 0부터 다시 시작한다. 이전 값과 섞이지 않도록 {@link #getEpoch()} 를 같이 쓴다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TableVersions implements PostCommitInsertEventListener,
+    PostCommitUpdateEventListener, PostCommitDeleteEventListener, ChangeListener {
+
+  private final EntityManagerFactory entityManagerFactory;
+
+  private final long epoch = System.currentTimeMillis();
+  private final AtomicLong memberVersion = new AtomicLong();
+  private final AtomicLong teamVersion = new AtomicLong();
+
+  @PostConstruct
+  public void register() {
+    EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+  }
+
+  public long getEpoch() {
+    return epoch;
+  }
+
+  public long getMemberVersion() {
+    return memberVersion.get();
+  }
+
+  public long getTeamVersion() {
+    return teamVersion.get();
+  }
+
+  public void bump(Class<?> entityClass) {
+    if (Member.class.isAssignableFrom(entityClass)) {
+      memberVersion.incrementAndGet();
+    } else if (Team.class.isAssignableFrom(entityClass)) {
+      teamVersion.incrementAndGet();
+    }
+  }
+
+  /**
+   * 자기 노드의 엔티티 변경은 커밋 때 이미 올렸다.
+   */
+  @Override
+  public void onChange(ChangeEvent event) {
+    if (event.isLocal() && !event.isBulk()) {
+      return;
+    }
+    if ("Member".equals(event.getAggregate())) {
+      memberVersion.incrementAndGet();
+    } else if ("Team".equals(event.getAggregate())) {
+      teamVersion.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    bump(event.getPersister().getMappedClass());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    bump(event.getPersister().getMappedClass());
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    bump(event.getPersister().getMappedClass());
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+  }
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+  }
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return true;
+  }
+}
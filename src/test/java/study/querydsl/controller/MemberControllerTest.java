@@ -0,0 +1,166 @@
+package study.querydsl.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  EntityManager entityManager;
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  private Long teamId;
+
+  @BeforeEach
+  void before() {
+    transactionTemplate.executeWithoutResult(status -> {
+      Team team = new Team("etagTeam");
+      entityManager.persist(team);
+      entityManager.persist(new Member("etagMember1", 10, team));
+      teamId = team.getId();
+    });
+  }
+
+  @AfterEach
+  void after() {
+    jdbcTemplate.update("delete from member where username like 'etagMember%'");
+    jdbcTemplate.update("delete from team where name like 'etagTeam%'");
+  }
+
+  @Test
+  void matchingIfNoneMatchReturnsNotModifiedWithoutSearching() throws Exception {
+    String etag = search();
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.setStatisticsEnabled(true);
+    statistics.clear();
+    try {
+      mockMvc.perform(get("/v2/members").param("teamName", "etagTeam")
+              .header(HttpHeaders.IF_NONE_MATCH, etag))
+          .andExpect(status().isNotModified())
+          .andExpect(header().string(HttpHeaders.ETAG, etag))
+          .andExpect(content().string(""));
+
+      assertThat(statistics.getPrepareStatementCount()).isZero();
+    } finally {
+      statistics.setStatisticsEnabled(false);
+    }
+  }
+
+  @Test
+  void memberCommitChangesETag() throws Exception {
+    String etag = search();
+
+    transactionTemplate.executeWithoutResult(status -> entityManager.persist(
+        new Member("etagMember2", 20, entityManager.find(Team.class, teamId))));
+
+    String changed = mockMvc.perform(get("/v2/members").param("teamName", "etagTeam")
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(2))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertThat(changed).isNotNull().isNotEqualTo(etag);
+  }
+
+  @Test
+  void teamCommitChangesETag() throws Exception {
+    String etag = search();
+
+    transactionTemplate.executeWithoutResult(status ->
+        entityManager.find(Team.class, teamId).setName("etagTeamRenamed"));
+
+    String changed = mockMvc.perform(get("/v2/members").param("teamName", "etagTeam")
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(0))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertThat(changed).isNotNull().isNotEqualTo(etag);
+  }
+
+  @Test
+  void fieldsWithColumnarAcceptIsNotAcceptable() throws Exception {
+    for (String path : new String[]{"/v1/members", "/v2/members", "/v3/members"}) {
+      mockMvc.perform(get(path).param("teamName", "etagTeam").param("fields", "memberId,username")
+              .accept(MemberResponseWriter.COLUMNAR_JSON))
+          .andExpect(status().isNotAcceptable());
+    }
+  }
+
+  @Test
+  void fieldsWithJsonAccept() throws Exception {
+    mockMvc.perform(get("/v1/members").param("teamName", "etagTeam").param("fields", "memberId,username")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$[0].username").value("etagMember1"));
+  }
+
+  @Test
+  void v3ReportsExactTotal() throws Exception {
+    mockMvc.perform(get("/v3/members").param("teamName", "etagTeam"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements").value(1))
+        .andExpect(jsonPath("$.totalExact").value(true));
+
+    mockMvc.perform(get("/v3/members").param("teamName", "etagTeam")
+            .accept(MemberResponseWriter.COLUMNAR_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.page.totalExact").value(true));
+  }
+
+  @Test
+  void firstRequestsAreTaggedUnwarmed() throws Exception {
+    search();
+
+    assertThat(meterRegistry.find("search.first.requests.latency").tag("warmed", "false").timer())
+        .isNotNull();
+  }
+
+  private String search() throws Exception {
+    String etag = mockMvc.perform(get("/v2/members").param("teamName", "etagTeam"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].username").value("etagMember1"))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertThat(etag).isNotNull();
+    return etag;
+  }
+}
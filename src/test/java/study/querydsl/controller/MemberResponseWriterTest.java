@@ -0,0 +1,151 @@
+package study.querydsl.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberResponseWriterTest {
+
+  private static final String[] PATHS = {"/v1/members", "/v2/members", "/v3/members"};
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  MemberResponseWriter memberResponseWriter;
+
+  @Autowired
+  EntityManager entityManager;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  private Long teamId;
+
+  @BeforeEach
+  void before() {
+    transactionTemplate.executeWithoutResult(status -> {
+      Team team = new Team("writerTeam");
+      entityManager.persist(team);
+      entityManager.persist(new Member("writerMember1", 10, team));
+      entityManager.persist(new Member("writerMember2", 20, team));
+      teamId = team.getId();
+    });
+  }
+
+  @AfterEach
+  void after() {
+    jdbcTemplate.update("delete from member where username like 'writerMember%'");
+    jdbcTemplate.update("delete from team where name like 'writerTeam%'");
+  }
+
+  @Test
+  void json() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    for (String path : PATHS) {
+      JsonNode body = mapper.readTree(search(path, MediaType.APPLICATION_JSON));
+      JsonNode rows = path.startsWith("/v1") ? body : body.get("content");
+
+      List<String> members = new ArrayList<>();
+      for (JsonNode row : rows) {
+        assertThat(row.get("memberId").isNumber()).isTrue();
+        members.add(row.get("username").asText() + ":" + row.get("age").asInt() + ":"
+            + row.get("teamId").asLong() + ":" + row.get("teamName").asText());
+      }
+      assertThat(members).as(path).containsExactlyInAnyOrder(
+          "writerMember1:10:" + teamId + ":writerTeam", "writerMember2:20:" + teamId + ":writerTeam");
+    }
+  }
+
+  @Test
+  void columnarJson() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    for (String path : PATHS) {
+      assertColumnar(path, mapper.readTree(search(path, MemberResponseWriter.COLUMNAR_JSON)));
+    }
+  }
+
+  @Test
+  void columnarSmile() throws Exception {
+    ObjectMapper mapper = new ObjectMapper(new SmileFactory());
+    for (String path : PATHS) {
+      assertColumnar(path, mapper.readTree(search(path, MemberResponseWriter.COLUMNAR_SMILE)));
+    }
+  }
+
+  @Test
+  void leavesStreamOpen() throws Exception {
+    CloseTrackingStream out = new CloseTrackingStream();
+    memberResponseWriter.write(MemberResponseWriter.COLUMNAR_SMILE, out,
+        Collections.singletonList(new MemberTeamDto(1L, "writerMember1", 10, 2L, "writerTeam")), null);
+
+    assertThat(out.closed).isFalse();
+    assertThat(out.size()).isPositive();
+  }
+
+  private byte[] search(String path, MediaType accept) throws Exception {
+    return mockMvc.perform(get(path).param("teamName", "writerTeam").accept(accept))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(accept))
+        .andReturn().getResponse().getContentAsByteArray();
+  }
+
+  private void assertColumnar(String path, JsonNode body) {
+    int size = body.get("memberId").size();
+    assertThat(size).as(path).isEqualTo(2);
+    List<String> members = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      assertThat(body.get("memberId").get(i).isNumber()).isTrue();
+      members.add(body.get("username").get(i).asText() + ":" + body.get("age").get(i).asInt() + ":"
+          + body.get("teamId").get(i).asLong() + ":" + body.get("teamName").get(i).asText());
+    }
+    assertThat(members).as(path).containsExactlyInAnyOrder(
+        "writerMember1:10:" + teamId + ":writerTeam", "writerMember2:20:" + teamId + ":writerTeam");
+
+    if (path.startsWith("/v1")) {
+      assertThat(body.has("page")).as(path).isFalse();
+    } else {
+      assertThat(body.get("page").get("number").asInt()).isZero();
+      assertThat(body.get("page").get("totalElements").asLong()).isEqualTo(2);
+      assertThat(body.get("page").get("totalPages").asInt()).isEqualTo(1);
+    }
+  }
+
+  private static class CloseTrackingStream extends ByteArrayOutputStream {
+
+    private boolean closed;
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
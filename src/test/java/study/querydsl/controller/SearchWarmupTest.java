@@ -0,0 +1,105 @@
+package study.querydsl.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = {"app.warmup.enabled=true", "app.warmup.budget-ms=300",
+    "app.result-cache.enabled=true"})
+@AutoConfigureMockMvc
+@Import(SearchWarmupTest.ReadinessConfig.class)
+class SearchWarmupTest {
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Autowired
+  SearchWarmup searchWarmup;
+
+  @Autowired
+  ApplicationAvailability availability;
+
+  @Autowired
+  AtomicBoolean warmedBeforeReady;
+
+  @Test
+  void readinessFlipsOnlyAfterWarmup() {
+    assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+    assertThat(warmedBeforeReady).isTrue();
+  }
+
+  @Test
+  void stopsAtBudget() {
+    long start = System.nanoTime();
+    searchWarmup.run(null);
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    // 마지막 반복은 끝까지 돌므로 budget 을 조금 넘을 수 있지만 그 이상은 돌지 않는다.
+    assertThat(elapsedMillis).isBetween(300L, 5_000L);
+  }
+
+  @Test
+  void firstRequestsAreTaggedWarmed() throws Exception {
+    mockMvc.perform(get("/v2/members")).andExpect(status().isOk());
+
+    Timer timer = meterRegistry.find("search.first.requests.latency")
+        .tags("uri", "/v2/members", "warmed", "true").timer();
+    assertThat(timer).isNotNull();
+    assertThat(timer.count()).isPositive();
+  }
+
+  @Test
+  void bypassesPageCache() {
+    double hits = meterRegistry.get("member.page.cache.hits").counter().count();
+    double misses = meterRegistry.get("member.page.cache.misses").counter().count();
+
+    searchWarmup.run(null);
+
+    assertThat(meterRegistry.get("member.page.cache.hits").counter().count()).isEqualTo(hits);
+    assertThat(meterRegistry.get("member.page.cache.misses").counter().count()).isEqualTo(misses);
+  }
+
+  @TestConfiguration
+  static class ReadinessConfig {
+
+    @Bean
+    AtomicBoolean warmedBeforeReady() {
+      return new AtomicBoolean();
+    }
+
+    /**
+     * readiness 가 ACCEPTING_TRAFFIC 이 되는 순간에 warm-up 첫 반복이 이미 기록되어 있는지 본다.
+     */
+    @Bean
+    ApplicationListener<AvailabilityChangeEvent<ReadinessState>> readinessListener(
+        AtomicBoolean warmedBeforeReady, ObjectProvider<MeterRegistry> meterRegistry) {
+      return event -> {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+          warmedBeforeReady.set(meterRegistry.getObject()
+              .find("warmup.search.pass.latency").tag("phase", "first").timer() != null);
+        }
+      };
+    }
+  }
+}
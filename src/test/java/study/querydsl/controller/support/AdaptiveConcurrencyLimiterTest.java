@@ -0,0 +1,61 @@
+package study.querydsl.controller.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+  @Test
+  void rejectsAboveLimit() {
+    AdaptiveConcurrencyLimiter limiter = limiter(2);
+
+    assertThat(limiter.tryAcquire()).isTrue();
+    assertThat(limiter.tryAcquire()).isTrue();
+    assertThat(limiter.tryAcquire()).isFalse();
+
+    limiter.release(FAST, false);
+    assertThat(limiter.tryAcquire()).isTrue();
+  }
+
+  @Test
+  void slowRequestsShrinkLimit() {
+    AdaptiveConcurrencyLimiter limiter = limiter(20);
+    limiter.tryAcquire();
+    limiter.release(FAST, false);
+
+    for (int i = 0; i < 10; i++) {
+      limiter.tryAcquire();
+      limiter.release(SLOW, false);
+    }
+
+    assertThat(limiter.getLimit()).isLessThan(20);
+  }
+
+  @Test
+  void fastRequestsGrowLimitWhenBusy() {
+    AdaptiveConcurrencyLimiter limiter = limiter(4);
+
+    for (int i = 0; i < 100; i++) {
+      int acquired = 0;
+      while (limiter.tryAcquire()) {
+        acquired++;
+      }
+      for (int j = 0; j < acquired; j++) {
+        limiter.release(FAST, false);
+      }
+    }
+
+    assertThat(limiter.getLimit()).isGreaterThan(4);
+  }
+
+  private AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+    return new AdaptiveConcurrencyLimiter("test", initialLimit, 1, 100, 2.0, 0.9,
+        new SimpleMeterRegistry());
+  }
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.List;
 import javax.persistence.EntityManager;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -44,4 +45,22 @@ class MemberTest {
       System.out.println(m);
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  void addMemberWithoutInitializingTeamMembers() {
+    Team team = new Team("teamA");
+    em.persist(team);
+    em.persist(new Member("member1", 10, team));
+    em.persist(new Member("member2", 20, team));
+
+    em.flush();
+    em.clear();
+
+    Team findTeam = em.find(Team.class, team.getId());
+    em.persist(new Member("member3", 30, findTeam));
+
+    assertFalse(Hibernate.isInitialized(findTeam.getMembers()));
+    assertEquals(3, findTeam.getMemberCount());
+    assertFalse(Hibernate.isInitialized(findTeam.getMembers()));
+  }
+}
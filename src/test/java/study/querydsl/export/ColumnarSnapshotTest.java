@@ -0,0 +1,49 @@
+package study.querydsl.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberTeamDto;
+
+class ColumnarSnapshotTest {
+
+  @Test
+  void roundTripAcrossRowGroups() throws IOException {
+    List<MemberTeamDto> expected = new ArrayList<>();
+    for (long i = 1; i <= 2500; i++) {
+      boolean noTeam = i % 10 == 0;
+      expected.add(new MemberTeamDto(i * 3, i % 7 == 0 ? null : "member" + i, (int) (i % 90),
+          noTeam ? null : i % 4, noTeam ? null : "team" + i % 4));
+    }
+    expected.add(new MemberTeamDto(10_000L, "old", 100_000, 1L, "팀"));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ColumnarSnapshotWriter writer = new ColumnarSnapshotWriter(bytes, 1234L, -1L, 1000)) {
+      for (MemberTeamDto dto : expected) {
+        writer.write(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(),
+            dto.getTeamName());
+      }
+    }
+
+    List<MemberTeamDto> actual = new ArrayList<>();
+    int groups = 0;
+    try (ColumnarSnapshotReader reader = new ColumnarSnapshotReader(
+        new ByteArrayInputStream(bytes.toByteArray()))) {
+      assertThat(reader.getSnapshotAt()).isEqualTo(1234L);
+      assertThat(reader.getSince()).isEqualTo(-1L);
+      List<MemberTeamDto> group;
+      while ((group = reader.nextGroup()) != null) {
+        actual.addAll(group);
+        groups++;
+      }
+    }
+
+    assertThat(groups).isEqualTo(3);
+    assertThat(actual).isEqualTo(expected);
+  }
+}
@@ -0,0 +1,143 @@
+package study.querydsl.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+class MemberSnapshotExporterTest {
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  EntityManager entityManager;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @TempDir
+  Path dir;
+
+  @AfterEach
+  void after() {
+    jdbcTemplate.update("delete from member where username like 'snap%'");
+    jdbcTemplate.update("delete from team where name like 'snap%'");
+  }
+
+  @Test
+  void fullThenIncremental() throws Exception {
+    Long[] ids = transactionTemplate.execute(status -> {
+      Team team = new Team("snapTeam");
+      entityManager.persist(team);
+      Member member1 = new Member("snap1", 10, team);
+      Member member2 = new Member("snap2", 20);
+      entityManager.persist(member1);
+      entityManager.persist(member2);
+      return new Long[]{member1.getId(), member2.getId()};
+    });
+
+    MemberSnapshotExporter exporter = new MemberSnapshotExporter(entityManagerFactory, 1000, 100, 0);
+    Path full = dir.resolve("full.msnp");
+    SnapshotResult fullResult = exporter.exportFull(full);
+
+    assertThat(fullResult.isIncremental()).isFalse();
+    assertThat(read(full)).extracting("username").contains("snap1", "snap2");
+
+    Thread.sleep(20);
+    transactionTemplate.executeWithoutResult(status ->
+        entityManager.find(Member.class, ids[1]).setAge(21));
+
+    Path incremental = dir.resolve("incremental.msnp");
+    SnapshotResult incrementalResult = exporter.exportSince(incremental, full);
+
+    assertThat(incrementalResult.isIncremental()).isTrue();
+    assertThat(incrementalResult.getSince()).isEqualTo(fullResult.getSnapshotAt());
+    List<MemberTeamDto> changed = read(incremental);
+    assertThat(changed).extracting("username").contains("snap2").doesNotContain("snap1");
+    assertThat(changed).filteredOn(dto -> "snap2".equals(dto.getUsername()))
+        .extracting("age").containsExactly(21);
+    assertThat(Files.exists(dir.resolve("incremental.msnp.tmp"))).isFalse();
+  }
+
+  @Test
+  void incrementalIncludesTransactionCommittedAfterPreviousSnapshot() throws Exception {
+    Long id = transactionTemplate.execute(status -> {
+      Member member = new Member("snapLate", 30);
+      entityManager.persist(member);
+      return member.getId();
+    });
+    Thread.sleep(20);
+
+    // snapshotAt 전에 flush 하고, 전체 export 가 읽기 시작한 뒤에 커밋하는 트랜잭션
+    CountDownLatch flushed = new CountDownLatch(1);
+    CountDownLatch exported = new CountDownLatch(1);
+    Thread writer = new Thread(() -> transactionTemplate.executeWithoutResult(status -> {
+      entityManager.find(Member.class, id).setAge(31);
+      entityManager.flush();
+      flushed.countDown();
+      await(exported);
+    }));
+    writer.start();
+    assertThat(flushed.await(5, TimeUnit.SECONDS)).isTrue();
+    Thread.sleep(20);
+
+    MemberSnapshotExporter exporter = new MemberSnapshotExporter(entityManagerFactory, 1000, 100,
+        5_000);
+    Path full = dir.resolve("full.msnp");
+    exporter.exportFull(full);
+    exported.countDown();
+    writer.join(5_000);
+
+    assertThat(read(full)).filteredOn(dto -> "snapLate".equals(dto.getUsername()))
+        .extracting("age").containsExactly(30);
+
+    Path incremental = dir.resolve("incremental.msnp");
+    exporter.exportSince(incremental, full);
+
+    assertThat(read(incremental)).filteredOn(dto -> "snapLate".equals(dto.getUsername()))
+        .extracting("age").containsExactly(31);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private List<MemberTeamDto> read(Path file) throws IOException {
+    List<MemberTeamDto> rows = new ArrayList<>();
+    try (InputStream in = Files.newInputStream(file);
+        ColumnarSnapshotReader reader = new ColumnarSnapshotReader(in)) {
+      List<MemberTeamDto> group;
+      while ((group = reader.nextGroup()) != null) {
+        rows.addAll(group);
+      }
+    }
+    return rows;
+  }
+}
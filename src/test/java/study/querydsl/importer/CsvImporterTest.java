@@ -0,0 +1,124 @@
+package study.querydsl.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.repository.outbox.OutboxWriter;
+
+@SpringBootTest
+class CsvImporterTest {
+
+  @Autowired
+  DataSource dataSource;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @TempDir
+  Path dir;
+
+  @AfterEach
+  void after() {
+    jdbcTemplate.update("delete from member where username like 'csv%'");
+    jdbcTemplate.update("delete from team where name like 'csv%'");
+  }
+
+  @Test
+  void importTeamsAndMembersInSmallChunks() throws IOException {
+    Path teams = dir.resolve("teams.csv");
+    Files.writeString(teams, "name\ncsvTeamA\ncsvTeamB\ncsvTeamA\n", StandardCharsets.UTF_8);
+    StringBuilder members = new StringBuilder("username,age,teamName\r\n");
+    for (int i = 0; i < 100; i++) {
+      members.append("csvMember").append(i).append(',').append(i).append(',')
+          .append(i % 3 == 0 ? "" : i % 3 == 1 ? "csvTeamA" : "csvTeamC").append("\r\n");
+    }
+    members.append("csvBroken,notANumber,csvTeamA\n");
+    members.append("csvLast,7,csvTeamB");
+    Path membersFile = dir.resolve("members.csv");
+    Files.writeString(membersFile, members, StandardCharsets.UTF_8);
+
+    CsvImporter importer = new CsvImporter(dataSource, 3, 7, 128, 60_000);
+    ImportResult teamResult = importer.importTeams(teams);
+    ImportResult memberResult = importer.importMembers(membersFile);
+
+    assertThat(teamResult.getRows()).isEqualTo(3);
+    assertThat(memberResult.getRows()).isEqualTo(101);
+    assertThat(memberResult.getRejected()).isEqualTo(1);
+    assertThat(jdbcTemplate.queryForObject(
+        "select count(*) from team where name like 'csv%'", Long.class)).isEqualTo(3);
+    assertThat(jdbcTemplate.queryForObject(
+        "select count(*) from member m join team t on m.team_id = t.id where t.name = 'csvTeamA'",
+        Long.class)).isEqualTo(33);
+    assertThat(jdbcTemplate.queryForObject(
+        "select count(*) from member where username like 'csv%' and team_id is null",
+        Long.class)).isEqualTo(34);
+    assertThat(jdbcTemplate.queryForObject(
+        "select age from member where username = 'csvLast'", Integer.class)).isEqualTo(7);
+  }
+
+  @Test
+  void createsTeamsWithParallelismEqualToPoolSize() throws IOException {
+    // worker 마다 팀을 새로 만들게 해서, 팀 생성에 커넥션을 더 빌리면 풀(기본 10개)이 바닥나게 한다.
+    StringBuilder members = new StringBuilder("username,age,teamName\n");
+    for (int i = 0; i < 400; i++) {
+      members.append("csvPool").append(i).append(',').append(i % 50).append(',')
+          .append("csvPoolTeam").append(i % 40).append('\n');
+    }
+    Path membersFile = dir.resolve("pool.csv");
+    Files.writeString(membersFile, members, StandardCharsets.UTF_8);
+
+    CsvImporter importer = new CsvImporter(dataSource, 10, 5, 64, 60_000);
+    ImportResult result = assertTimeoutPreemptively(Duration.ofSeconds(30),
+        () -> importer.importMembers(membersFile));
+
+    assertThat(result.getRows()).isEqualTo(400);
+    assertThat(jdbcTemplate.queryForObject(
+        "select count(*) from team where name like 'csvPoolTeam%'", Long.class)).isEqualTo(40);
+    assertThat(jdbcTemplate.queryForObject(
+        "select count(*) from member m join team t on m.team_id = t.id where m.username like 'csvPool%'",
+        Long.class)).isEqualTo(400);
+  }
+
+  @Test
+  void recordsBulkInsertsInOutbox() throws IOException {
+    StringBuilder members = new StringBuilder("username,age,teamName\n");
+    for (int i = 0; i < 20; i++) {
+      members.append("csvOutbox").append(i).append(',').append(i).append(",csvOutboxTeam\n");
+    }
+    Path membersFile = dir.resolve("outbox.csv");
+    Files.writeString(membersFile, members, StandardCharsets.UTF_8);
+    OutboxWriter outboxWriter = new OutboxWriter(entityManagerFactory);
+
+    try {
+      new CsvImporter(dataSource, outboxWriter, 1, 5, 1024, 60_000).importMembers(membersFile);
+
+      // 회원 batch 4번, 팀 생성 1번
+      assertThat(jdbcTemplate.queryForObject(
+          "select count(*) from outbox_event where origin = ? and aggregate = 'Member'"
+              + " and change_type = 'BULK_INSERT' and aggregate_id is null",
+          Long.class, outboxWriter.getOrigin())).isEqualTo(4);
+      assertThat(jdbcTemplate.queryForObject(
+          "select count(*) from outbox_event where origin = ? and aggregate = 'Team'"
+              + " and change_type = 'BULK_INSERT'",
+          Long.class, outboxWriter.getOrigin())).isEqualTo(1);
+    } finally {
+      jdbcTemplate.update("delete from outbox_event where origin = ?", outboxWriter.getOrigin());
+    }
+  }
+}
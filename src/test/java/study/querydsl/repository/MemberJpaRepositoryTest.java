@@ -102,4 +102,42 @@ class MemberJpaRepositoryTest {
     assertThat(memberTeamDtos).extracting("username").containsExactly("member4");
 
   }
-}
\ No newline at end of file
+
+  @Test
+  void searchAllMergesConditions() {
+    Team teamA = new Team("batchTeamA");
+    Team teamB = new Team("batchTeamB");
+
+    entityManager.persist(teamA);
+    entityManager.persist(teamB);
+
+    entityManager.persist(new Member("batchMember1", 10, teamA));
+    entityManager.persist(new Member("batchMember2", 20, teamA));
+    entityManager.persist(new Member("batchMember3", 30, teamB));
+    entityManager.persist(new Member("batchMember4", 40, teamB));
+
+    MemberSearchCondition byTeamA = new MemberSearchCondition();
+    byTeamA.setTeamName("batchTeamA");
+    MemberSearchCondition byTeamB = new MemberSearchCondition();
+    byTeamB.setTeamName("batchTeamB");
+    MemberSearchCondition byUsername = new MemberSearchCondition();
+    byUsername.setUsername("batchMember3");
+    MemberSearchCondition olderInTeamB = new MemberSearchCondition();
+    olderInTeamB.setTeamName("batchTeamB");
+    olderInTeamB.setAgeGoe(35);
+
+    List<MemberSearchCondition> conditions =
+        List.of(byTeamA, byTeamB, byUsername, olderInTeamB, byTeamA);
+    List<List<MemberTeamDto>> result = memberJpaRepository.searchAll(conditions);
+
+    assertThat(result).hasSize(5);
+    assertThat(result.get(0)).extracting("username").containsExactly("batchMember1", "batchMember2");
+    assertThat(result.get(1)).extracting("username").containsExactly("batchMember3", "batchMember4");
+    assertThat(result.get(2)).extracting("username").containsExactly("batchMember3");
+    assertThat(result.get(3)).extracting("username").containsExactly("batchMember4");
+    assertThat(result.get(4)).isEqualTo(result.get(0));
+    for (int i = 0; i < conditions.size(); i++) {
+      assertThat(result.get(i)).isEqualTo(memberJpaRepository.search(conditions.get(i)));
+    }
+  }
+}
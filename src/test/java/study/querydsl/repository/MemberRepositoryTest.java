@@ -2,7 +2,9 @@ package study.querydsl.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -97,6 +99,69 @@ public class MemberRepositoryTest {
     assertThat(memberTeamDtos.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
   }
 
+  @Test
+  void searchPageComplex() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+
+    entityManager.persist(teamA);
+    entityManager.persist(teamB);
+
+    Member member1 = new Member("member1", 10, teamA);
+    Member member2 = new Member("member2", 20, teamA);
+    Member member3 = new Member("member3", 30, teamB);
+    Member member4 = new Member("member4", 40, teamB);
+
+    entityManager.persist(member1);
+    entityManager.persist(member2);
+    entityManager.persist(member3);
+    entityManager.persist(member4);
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(20);
+    PageRequest pageRequest = PageRequest.of(0, 2);
+
+    Page<MemberTeamDto> memberTeamDtos = memberRepository.searchPageComplex(condition, pageRequest);
+
+    assertThat(memberTeamDtos.getTotalElements()).isEqualTo(3);
+    assertThat(memberTeamDtos.getContent()).extracting("username").containsExactly("member2", "member3");
+    assertThat(memberTeamDtos.getContent()).extracting("teamName").containsExactly("teamA", "teamB");
+  }
+
+  @Test
+  void searchPageFields() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+
+    entityManager.persist(teamA);
+    entityManager.persist(teamB);
+
+    Member member1 = new Member("member1", 10, teamA);
+    Member member2 = new Member("member2", 20, teamA);
+    Member member3 = new Member("member3", 30, teamB);
+    Member member4 = new Member("member4", 40, teamB);
+
+    entityManager.persist(member1);
+    entityManager.persist(member2);
+    entityManager.persist(member3);
+    entityManager.persist(member4);
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamB");
+
+    Page<Map<String, Object>> result = memberRepository.searchPageFields(condition,
+        EnumSet.of(MemberField.MEMBER_ID, MemberField.USERNAME), PageRequest.of(0, 10));
+
+    assertThat(result.getTotalElements()).isEqualTo(2);
+    assertThat(result.getContent()).extracting(row -> row.get("username")).containsExactly("member3", "member4");
+    assertThat(result.getContent().get(0)).containsOnlyKeys("memberId", "username");
+
+    List<Map<String, Object>> teamIds = memberRepository.searchFields(new MemberSearchCondition(),
+        MemberField.parse(List.of("username", "teamId")));
+    assertThat(teamIds).extracting(row -> row.get("teamId"))
+        .containsExactly(teamA.getId(), teamA.getId(), teamB.getId(), teamB.getId());
+  }
+
   @Test
   void querydslPredicateExecutorTest() {
     Team teamA = new Team("teamA");
@@ -0,0 +1,94 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.Collections;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountEstimator;
+import study.querydsl.repository.support.CountPolicy;
+import study.querydsl.repository.support.CountedPage;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+  @Autowired
+  EntityManager entityManager;
+
+  private MemberTestRepository memberTestRepository;
+
+  @BeforeEach
+  void before() {
+    memberTestRepository = new MemberTestRepository();
+    memberTestRepository.setEntityManager(entityManager);
+
+    Team teamA = new Team("teamA");
+    entityManager.persist(teamA);
+    for (int i = 0; i < 30; i++) {
+      entityManager.persist(new Member("member" + i, i, teamA));
+    }
+  }
+
+  @Test
+  void exactBelowThreshold() {
+    Page<Member> page = memberTestRepository.applyPaginationEstimated(new MemberSearchCondition(),
+        PageRequest.of(0, 5), 100);
+
+    assertThat(page.getTotalElements()).isEqualTo(30);
+    assertThat(((CountedPage<Member>) page).isTotalExact()).isTrue();
+  }
+
+  @Test
+  void estimatedAboveThreshold() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(5);
+
+    Page<Member> page = memberTestRepository.applyPaginationEstimated(condition,
+        PageRequest.of(0, 5), 10);
+
+    assertThat(page.getContent()).hasSize(5);
+    assertThat(page.getTotalElements()).isGreaterThan(10);
+    assertThat(((CountedPage<Member>) page).isTotalExact()).isFalse();
+  }
+
+  @Test
+  void sampleWindowIsCapped() {
+    CountEstimator estimator = new CountEstimator(entityManager, new JPAQueryFactory(entityManager),
+        Member.class, 5);
+    JPAQuery<Long> countQuery = new JPAQueryFactory(entityManager)
+        .select(member.count())
+        .from(member)
+        .where(member.age.goe(5));
+
+    Page<Member> page = estimator.page(Collections.emptyList(), PageRequest.of(1, 5), countQuery,
+        CountPolicy.exactUpTo(10));
+
+    assertThat(page.getTotalElements()).isGreaterThan(10);
+    assertThat(((CountedPage<Member>) page).isTotalExact()).isFalse();
+  }
+
+  @Test
+  void firstPageShorterThanSizeNeedsNoCount() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(28);
+
+    Page<Member> page = memberTestRepository.applyPaginationEstimated(condition,
+        PageRequest.of(0, 5), 1);
+
+    assertThat(page.getTotalElements()).isEqualTo(2);
+    assertThat(((CountedPage<Member>) page).isTotalExact()).isTrue();
+  }
+}
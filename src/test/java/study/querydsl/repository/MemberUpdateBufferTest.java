@@ -0,0 +1,142 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberUpdateDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+class MemberUpdateBufferTest {
+
+  @Autowired
+  EntityManager entityManager;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  private Long member1;
+  private Long member2;
+  private Long teamB;
+
+  @BeforeEach
+  void before() {
+    transactionTemplate.executeWithoutResult(status -> {
+      Team a = new Team("bufferTeamA");
+      Team b = new Team("bufferTeamB");
+      entityManager.persist(a);
+      entityManager.persist(b);
+      Member m1 = new Member("bufferMember1", 10, a);
+      Member m2 = new Member("bufferMember2", 20, a);
+      entityManager.persist(m1);
+      entityManager.persist(m2);
+      member1 = m1.getId();
+      member2 = m2.getId();
+      teamB = b.getId();
+    });
+  }
+
+  @AfterEach
+  void after() {
+    jdbcTemplate.update("delete from member where username like 'bufferMember%'");
+    jdbcTemplate.update("delete from team where name like 'bufferTeam%'");
+  }
+
+  @Test
+  void coalescesAndCommitsInOneBatch() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MemberUpdateBuffer buffer = new MemberUpdateBuffer(entityManager, transactionTemplate, registry,
+        100, 100, Duration.ofMillis(200), Duration.ofMillis(100));
+
+    List<CompletableFuture<Void>> acks = new ArrayList<>();
+    for (int age = 11; age <= 15; age++) {
+      acks.add(buffer.submit(member1, update(age, null)));
+    }
+    acks.add(buffer.submit(member2, update(null, teamB)));
+    acks.add(buffer.submit(member2, update(25, null)));
+    CompletableFuture<Void> missing = buffer.submit(-1L, update(1, null));
+
+    for (CompletableFuture<Void> ack : acks) {
+      ack.get(5, TimeUnit.SECONDS);
+    }
+    assertThatThrownBy(() -> missing.get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(EntityNotFoundException.class);
+    buffer.close();
+
+    assertThat(jdbcTemplate.queryForObject("select age from member where member_id = ?",
+        Integer.class, member1)).isEqualTo(15);
+    assertThat(jdbcTemplate.queryForObject("select age from member where member_id = ?",
+        Integer.class, member2)).isEqualTo(25);
+    assertThat(jdbcTemplate.queryForObject("select team_id from member where member_id = ?",
+        Long.class, member2)).isEqualTo(teamB);
+    assertThat(registry.get("member.update.buffer.coalesced").counter().count()).isEqualTo(5);
+    assertThat(registry.get("member.update.buffer.batch.size").summary().count()).isEqualTo(1);
+  }
+
+  @Test
+  void unknownTeamFailsOnlyItsUpdate() throws Exception {
+    MemberUpdateBuffer buffer = new MemberUpdateBuffer(entityManager, transactionTemplate,
+        new SimpleMeterRegistry(), 100, 100, Duration.ofMillis(200), Duration.ofMillis(100));
+
+    CompletableFuture<Void> badTeam = buffer.submit(member1, update(50, -1L));
+    CompletableFuture<Void> valid = buffer.submit(member2, update(60, teamB));
+
+    valid.get(5, TimeUnit.SECONDS);
+    assertThatThrownBy(() -> badTeam.get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(EntityNotFoundException.class);
+    buffer.close();
+
+    assertThat(jdbcTemplate.queryForObject("select age from member where member_id = ?",
+        Integer.class, member1)).isEqualTo(10);
+    assertThat(jdbcTemplate.queryForObject("select age from member where member_id = ?",
+        Integer.class, member2)).isEqualTo(60);
+    assertThat(jdbcTemplate.queryForObject("select team_id from member where member_id = ?",
+        Long.class, member2)).isEqualTo(teamB);
+  }
+
+  @Test
+  void rejectsWhenFull() throws Exception {
+    MemberUpdateBuffer buffer = new MemberUpdateBuffer(entityManager, transactionTemplate,
+        new SimpleMeterRegistry(), 1, 100, Duration.ofSeconds(10), Duration.ofMillis(10));
+
+    CompletableFuture<Void> first = buffer.submit(member1, update(30, null));
+    buffer.submit(member1, update(31, null));
+
+    assertThatThrownBy(() -> buffer.submit(member2, update(40, null)))
+        .isInstanceOf(WriteBufferFullException.class);
+
+    buffer.close();
+    first.get(5, TimeUnit.SECONDS);
+    assertThat(jdbcTemplate.queryForObject("select age from member where member_id = ?",
+        Integer.class, member1)).isEqualTo(31);
+  }
+
+  private MemberUpdateDto update(Integer age, Long teamId) {
+    MemberUpdateDto update = new MemberUpdateDto();
+    update.setAge(age);
+    update.setTeamId(teamId);
+    return update;
+  }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+  @Autowired
+  EntityManager entityManager;
+
+  @Autowired
+  private TeamRepository teamRepository;
+
+  @Test
+  void searchTeamsWithMembers() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    Team teamC = new Team("teamC");
+
+    entityManager.persist(teamA);
+    entityManager.persist(teamB);
+    entityManager.persist(teamC);
+
+    entityManager.persist(new Member("member1", 10, teamA));
+    entityManager.persist(new Member("member2", 20, teamA));
+    entityManager.persist(new Member("member3", 30, teamB));
+    entityManager.persist(new Member("member4", 40, teamC));
+
+    entityManager.flush();
+    entityManager.clear();
+
+    Page<TeamMembersDto> result = teamRepository.searchTeamsWithMembers(PageRequest.of(0, 2));
+
+    assertThat(result.getTotalElements()).isEqualTo(3);
+    assertThat(result.getContent()).extracting("teamName").containsExactly("teamA", "teamB");
+    assertThat(result.getContent().get(0).getMembers()).extracting("username")
+        .containsExactly("member1", "member2");
+    assertThat(result.getContent().get(1).getMembers()).extracting("username")
+        .containsExactly("member3");
+  }
+
+  @Test
+  void searchOldestMembersPerTeam() {
+    Team teamA = new Team("oldestTeamA");
+    Team teamB = new Team("oldestTeamB");
+    entityManager.persist(teamA);
+    entityManager.persist(teamB);
+
+    entityManager.persist(new Member("oldestA1", 10, teamA));
+    entityManager.persist(new Member("oldestA2", 40, teamA));
+    entityManager.persist(new Member("oldestA3", 30, teamA));
+    entityManager.persist(new Member("oldestA4", 40, teamA));
+    entityManager.persist(new Member("oldestB1", 20, teamB));
+
+    entityManager.flush();
+    entityManager.clear();
+
+    List<TeamMembersDto> result = teamRepository.searchOldestMembersPerTeam(3).stream()
+        .filter(dto -> dto.getTeamName().startsWith("oldestTeam"))
+        .collect(Collectors.toList());
+
+    assertThat(result).extracting("teamName").containsExactly("oldestTeamA", "oldestTeamB");
+    assertThat(result.get(0).getMembers()).extracting("username")
+        .containsExactly("oldestA2", "oldestA4", "oldestA3");
+    assertThat(result.get(1).getMembers()).extracting("username")
+        .containsExactly("oldestB1");
+  }
+}
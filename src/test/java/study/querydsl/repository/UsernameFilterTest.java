@@ -0,0 +1,64 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+
+@SpringBootTest(properties = "app.username-filter.enabled=true")
+@Transactional
+class UsernameFilterTest {
+
+  @Autowired
+  EntityManager entityManager;
+
+  @Autowired
+  MemberRepository memberRepository;
+
+  @Autowired
+  MemberJpaRepository memberJpaRepository;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Test
+  void insertedUsernameIsFound() {
+    entityManager.persist(new Member("filterMember", 10));
+
+    assertThat(memberRepository.findByUsername("filterMember")).extracting("username")
+        .containsExactly("filterMember");
+  }
+
+  @Test
+  void missingUsernameSkipsQuery() {
+    double before = meterRegistry.get("member.username.filter.lookups").tag("result", "negative")
+        .counter().count();
+
+    assertThat(memberRepository.findByUsername("noSuchMember")).isEmpty();
+
+    assertThat(meterRegistry.get("member.username.filter.lookups").tag("result", "negative")
+        .counter().count()).isEqualTo(before + 1);
+  }
+
+  @Test
+  void emptyResultAfterPositiveIsFalsePositive() {
+    // filter 에는 insert 때 들어가고, 삭제는 커밋 뒤에만 빠지므로 트랜잭션 안에서는 false positive 가 된다.
+    entityManager.persist(new Member("filterGhost", 10));
+    entityManager.flush();
+    entityManager.remove(memberRepository.findByUsername("filterGhost").get(0));
+    entityManager.flush();
+    double before = meterRegistry.get("member.username.filter.false.positives").counter().count();
+
+    assertThat(memberJpaRepository.findByUsername("filterGhost")).isEmpty();
+    assertThat(memberJpaRepository.findByUsername_Querydsl("filterGhost")).isEmpty();
+    assertThat(memberRepository.findByUsername("filterGhost")).isEmpty();
+
+    assertThat(meterRegistry.get("member.username.filter.false.positives").counter().count())
+        .isEqualTo(before + 3);
+  }
+}
@@ -0,0 +1,144 @@
+package study.querydsl.repository.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberSearchKey;
+import study.querydsl.repository.support.CountedPage;
+import study.querydsl.repository.support.TableVersions;
+
+class MemberPageCacheTest {
+
+  private TableVersions tableVersions;
+  private SimpleMeterRegistry registry;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void before() {
+    tableVersions = new TableVersions(null);
+    registry = new SimpleMeterRegistry();
+    loads = new AtomicInteger();
+  }
+
+  @Test
+  void roundTrip() {
+    MemberPageCache cache = new MemberPageCache(64 * 1024, 256, tableVersions, registry);
+    Pageable pageable = PageRequest.of(0, 3);
+    MemberSearchKey key = MemberSearchKey.of(new MemberSearchCondition(), pageable);
+    Page<MemberTeamDto> page = new PageImpl<>(List.of(
+        new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+        new MemberTeamDto(2L, "회원2", -1, null, null),
+        new MemberTeamDto(Long.MAX_VALUE, "", 0, 2L, "teamB")), pageable, 100);
+
+    cache.getOrLoad("simple", key, pageable, () -> load(page));
+    Page<MemberTeamDto> cached = cache.getOrLoad("simple", key, pageable, () -> load(page));
+
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(cached.getTotalElements()).isEqualTo(100);
+    assertThat(cached.getContent()).isEqualTo(page.getContent());
+    assertThat(registry.get("member.page.cache.hits").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void keepsEstimatedTotal() {
+    MemberPageCache cache = new MemberPageCache(64 * 1024, 256, tableVersions, registry);
+    Pageable pageable = PageRequest.of(0, 10);
+    MemberSearchKey key = MemberSearchKey.of(new MemberSearchCondition(), pageable);
+    Page<MemberTeamDto> page = new CountedPage<>(page(10, pageable).getContent(), pageable, 5000, false);
+
+    cache.getOrLoad("complex", key, pageable, () -> load(page));
+    Page<MemberTeamDto> cached = cache.getOrLoad("complex", key, pageable, () -> load(page));
+
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(cached.getTotalElements()).isEqualTo(5000);
+    assertThat(cached).isInstanceOf(CountedPage.class);
+    assertThat(((CountedPage<MemberTeamDto>) cached).isTotalExact()).isFalse();
+  }
+
+  @Test
+  void queryKindIsPartOfKey() {
+    MemberPageCache cache = new MemberPageCache(64 * 1024, 256, tableVersions, registry);
+    Pageable pageable = PageRequest.of(0, 10);
+    MemberSearchKey key = MemberSearchKey.of(new MemberSearchCondition(), pageable);
+
+    cache.getOrLoad("simple", key, pageable, () -> load(page(10, pageable)));
+    cache.getOrLoad("complex", key, pageable, () -> load(page(10, pageable)));
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  void memberWriteInvalidates() {
+    MemberPageCache cache = new MemberPageCache(64 * 1024, 256, tableVersions, registry);
+    Pageable pageable = PageRequest.of(0, 10);
+    MemberSearchKey key = MemberSearchKey.of(new MemberSearchCondition(), pageable);
+
+    cache.getOrLoad("simple", key, pageable, () -> load(page(10, pageable)));
+    tableVersions.bump(Member.class);
+    cache.getOrLoad("simple", key, pageable, () -> load(page(10, pageable)));
+
+    assertThat(loads.get()).isEqualTo(2);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  void resultLoadedBeforeWriteIsNotCached() {
+    MemberPageCache cache = new MemberPageCache(64 * 1024, 256, tableVersions, registry);
+    Pageable pageable = PageRequest.of(0, 10);
+    MemberSearchKey key = MemberSearchKey.of(new MemberSearchCondition(), pageable);
+
+    cache.getOrLoad("simple", key, pageable, () -> {
+      tableVersions.bump(Member.class);
+      return load(page(10, pageable));
+    });
+
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  void evictsLeastRecentlyUsed() {
+    MemberPageCache cache = new MemberPageCache(4 * 1024, 1024, tableVersions, registry);
+    List<MemberSearchKey> keys = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Pageable pageable = PageRequest.of(i, 20);
+      MemberSearchKey key = MemberSearchKey.of(new MemberSearchCondition(), pageable);
+      keys.add(key);
+      cache.getOrLoad("simple", key, pageable, () -> load(page(20, pageable)));
+    }
+
+    assertThat(cache.size()).isLessThan(5);
+    assertThat(cache.getUsedBytes()).isLessThanOrEqualTo(4 * 1024);
+    assertThat(registry.get("member.page.cache.evictions").counter().count()).isPositive();
+
+    int before = loads.get();
+    Pageable last = PageRequest.of(4, 20);
+    cache.getOrLoad("simple", keys.get(4), last, () -> load(page(20, last)));
+    assertThat(loads.get()).isEqualTo(before);
+  }
+
+  private Page<MemberTeamDto> load(Page<MemberTeamDto> page) {
+    loads.incrementAndGet();
+    return page;
+  }
+
+  private Page<MemberTeamDto> page(int size, Pageable pageable) {
+    List<MemberTeamDto> content = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      long id = pageable.getOffset() + i;
+      content.add(new MemberTeamDto(id, "member" + id, (int) id, id % 2, "team" + id % 2));
+    }
+    return new PageImpl<>(content, pageable, 1000);
+  }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.repository.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.OutboxEvent.ChangeType;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.support.TableVersions;
+
+@SpringBootTest(properties = {"app.outbox.enabled=true", "app.outbox.poll-interval-ms=20"})
+@Import(OutboxTest.RecordingConfig.class)
+class OutboxTest {
+
+  @Autowired
+  EntityManager entityManager;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  MemberJpaRepository memberJpaRepository;
+
+  @Autowired
+  TableVersions tableVersions;
+
+  @Autowired
+  List<ChangeEvent> received;
+
+  @AfterEach
+  void after() {
+    jdbcTemplate.update("delete from member where username like 'outboxMember%'");
+    jdbcTemplate.update("delete from outbox_event");
+  }
+
+  @Test
+  void rolledBackChangesLeaveNoEvents() {
+    long before = outboxCount();
+
+    transactionTemplate.executeWithoutResult(status -> {
+      entityManager.persist(new Member("outboxMember1", 10));
+      entityManager.flush();
+      assertThat(outboxCount()).isEqualTo(before + 1);
+      status.setRollbackOnly();
+    });
+
+    assertThat(outboxCount()).isEqualTo(before);
+  }
+
+  @Test
+  void committedChangesAreDelivered() throws InterruptedException {
+    long memberVersion = tableVersions.getMemberVersion();
+
+    Long id = transactionTemplate.execute(status -> {
+      Member saved = new Member("outboxMember2", 10);
+      entityManager.persist(saved);
+      return saved.getId();
+    });
+    Timestamp insertedAt = modifiedAt("outboxMember2");
+    Thread.sleep(5);
+    long updated = transactionTemplate.execute(
+        status -> memberJpaRepository.bulkAddAge(1, member.username.eq("outboxMember2")));
+    assertThat(updated).isEqualTo(1);
+    // 증분 export 가 bulk update 를 찾을 수 있어야 한다.
+    assertThat(modifiedAt("outboxMember2")).isAfter(insertedAt);
+
+    ChangeEvent bulk = awaitEvent(ChangeType.BULK_UPDATE);
+    assertThat(bulk.getAggregate()).isEqualTo("Member");
+    assertThat(bulk.isLocal()).isTrue();
+    assertThat(received).anySatisfy(event -> {
+      assertThat(event.getChangeType()).isEqualTo(ChangeType.INSERT);
+      assertThat(event.getAggregateId()).isEqualTo(id);
+    });
+    // 이 노드의 bulk 변경은 Hibernate 이벤트로 잡히지 않으므로 outbox 로 버전이 올라간다.
+    assertThat(tableVersions.getMemberVersion()).isGreaterThan(memberVersion);
+  }
+
+  private ChangeEvent awaitEvent(ChangeType changeType) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (System.currentTimeMillis() < deadline) {
+      for (ChangeEvent event : received) {
+        if (event.getChangeType() == changeType) {
+          return event;
+        }
+      }
+      Thread.sleep(20);
+    }
+    throw new AssertionError(changeType + " was not delivered");
+  }
+
+  private Timestamp modifiedAt(String username) {
+    return jdbcTemplate.queryForObject("select modified_at from member where username = ?",
+        Timestamp.class, username);
+  }
+
+  private long outboxCount() {
+    return jdbcTemplate.queryForObject("select count(*) from outbox_event", Long.class);
+  }
+
+  @TestConfiguration
+  static class RecordingConfig {
+
+    @Bean
+    List<ChangeEvent> received() {
+      return new CopyOnWriteArrayList<>();
+    }
+
+    @Bean
+    ChangeListener recordingListener(List<ChangeEvent> received) {
+      return received::add;
+    }
+  }
+}
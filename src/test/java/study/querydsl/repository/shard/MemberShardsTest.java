@@ -0,0 +1,96 @@
+package study.querydsl.repository.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+@SpringBootTest(properties = {
+    "app.sharding.enabled=true",
+    "app.sharding.urls=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+    "app.sharding.ddl-auto=create-drop"
+})
+class MemberShardsTest {
+
+  @Autowired
+  private MemberShards memberShards;
+
+  @BeforeEach
+  void before() {
+    for (int shard = 0; shard < memberShards.size(); shard++) {
+      EntityManager em = memberShards.getShard(shard).createEntityManager();
+      em.getTransaction().begin();
+      em.createNativeQuery("delete from member").executeUpdate();
+      em.createNativeQuery("delete from team").executeUpdate();
+      insertTeam(em, 1L, "teamA");
+      insertTeam(em, 2L, "teamB");
+      em.getTransaction().commit();
+      em.close();
+    }
+
+    // teamA(1) -> 1번 샤드, teamB(2) -> 0번 샤드
+    insertMember(1L, "member1", 10, 1L);
+    insertMember(2L, "member2", 20, 2L);
+    insertMember(3L, "member3", 30, 1L);
+    insertMember(4L, "member4", 40, 2L);
+    insertMember(5L, "member5", 50, 1L);
+  }
+
+  @Test
+  void routeByTeamName() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamA");
+
+    assertThat(memberShards.route(condition)).containsExactly(1);
+    assertThat(memberShards.search(condition)).extracting("username")
+        .containsExactly("member1", "member3", "member5");
+  }
+
+  @Test
+  void scatterGatherPage() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    Page<MemberTeamDto> page = memberShards.searchPage(condition, PageRequest.of(1, 2));
+
+    assertThat(page.getTotalElements()).isEqualTo(5);
+    assertThat(page.getContent()).extracting("username").containsExactly("member3", "member4");
+  }
+
+  @Test
+  void scatterGatherWithCondition() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(20);
+
+    List<MemberTeamDto> result = memberShards.search(condition);
+
+    assertThat(result).extracting("username").containsExactly("member2", "member3", "member4", "member5");
+  }
+
+  private void insertTeam(EntityManager em, Long id, String name) {
+    em.createNativeQuery("insert into team (id, name) values (?, ?)")
+        .setParameter(1, id)
+        .setParameter(2, name)
+        .executeUpdate();
+  }
+
+  private void insertMember(Long id, String username, int age, Long teamId) {
+    EntityManager em = memberShards.getShard(memberShards.shardOf(teamId)).createEntityManager();
+    em.getTransaction().begin();
+    em.createNativeQuery("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)")
+        .setParameter(1, id)
+        .setParameter(2, username)
+        .setParameter(3, age)
+        .setParameter(4, teamId)
+        .executeUpdate();
+    em.getTransaction().commit();
+    em.close();
+  }
+}
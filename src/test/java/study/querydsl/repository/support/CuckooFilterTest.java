@@ -0,0 +1,73 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class CuckooFilterTest {
+
+  @Test
+  void noFalseNegatives() {
+    CuckooFilter filter = new CuckooFilter(10_000);
+    for (int i = 0; i < 10_000; i++) {
+      filter.put("member" + i);
+    }
+
+    assertThat(filter.isSaturated()).isFalse();
+    assertThat(filter.size()).isEqualTo(10_000);
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(filter.mightContain("member" + i)).isTrue();
+    }
+  }
+
+  @Test
+  void falsePositiveRateIsLow() {
+    CuckooFilter filter = new CuckooFilter(10_000);
+    for (int i = 0; i < 10_000; i++) {
+      filter.put("member" + i);
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (filter.mightContain("other" + i)) {
+        falsePositives++;
+      }
+    }
+    assertThat(falsePositives).isLessThan(100);
+  }
+
+  @Test
+  void duplicatePutUsesOneSlot() {
+    CuckooFilter filter = new CuckooFilter(100);
+    filter.put("member1");
+    filter.put("member1");
+
+    assertThat(filter.size()).isEqualTo(1);
+    assertThat(filter.remove("member1")).isTrue();
+    assertThat(filter.mightContain("member1")).isFalse();
+  }
+
+  @Test
+  void manyDuplicatesDoNotSaturate() {
+    CuckooFilter filter = new CuckooFilter(100);
+    for (int i = 0; i < 20; i++) {
+      filter.put("sameName");
+    }
+
+    assertThat(filter.isSaturated()).isFalse();
+    assertThat(filter.size()).isEqualTo(1);
+    assertThat(filter.mightContain("sameName")).isTrue();
+    assertThat(filter.mightContain("otherName")).isFalse();
+  }
+
+  @Test
+  void saturatedFilterAlwaysAnswersMaybe() {
+    CuckooFilter filter = new CuckooFilter(4);
+    for (int i = 0; i < 1000; i++) {
+      filter.put("member" + i);
+    }
+
+    assertThat(filter.isSaturated()).isTrue();
+    assertThat(filter.mightContain("anything")).isTrue();
+  }
+}
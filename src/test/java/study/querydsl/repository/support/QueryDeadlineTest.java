@@ -0,0 +1,135 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.controller.support.RequestDeadlineInterceptor;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(QueryDeadlineTest.ExpireConfig.class)
+class QueryDeadlineTest {
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  MemberJpaRepository memberJpaRepository;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @AfterEach
+  void after() {
+    QueryDeadline.clear();
+  }
+
+  @Test
+  void expiredDeadlineReturnsServiceUnavailable() throws Exception {
+    mockMvc.perform(get("/v1/members").header(ExpireConfig.EXPIRE_HEADER, "true"))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+  }
+
+  @Test
+  void nonPositiveTimeoutUsesDefaultBudget() throws Exception {
+    for (String timeout : new String[]{"0", "-5"}) {
+      mockMvc.perform(get("/v1/members").header(RequestDeadlineInterceptor.TIMEOUT_HEADER, timeout))
+          .andExpect(status().isOk());
+    }
+  }
+
+  /**
+   * 요청마다 마감 시각을 새로 정하므로 스레드에 남은 만료된 마감 시각이 쓰이지 않는다.
+   */
+  @Test
+  void lookupEndpointsStartDeadline() throws Exception {
+    QueryDeadline.start(Duration.ZERO);
+    mockMvc.perform(post("/v1/members/batch").contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"username\":\"deadlineMember\"}]"))
+        .andExpect(status().isOk());
+
+    QueryDeadline.start(Duration.ZERO);
+    mockMvc.perform(get("/v1/teams/oldest-members"))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void expiredDeadlineSkipsQuery() {
+    QueryDeadline.start(Duration.ZERO);
+
+    assertThatThrownBy(() -> memberJpaRepository.search(new MemberSearchCondition()))
+        .isInstanceOf(QueryTimeoutException.class);
+  }
+
+  @Test
+  void cancellationRemovedAfterNormalQuery() {
+    int before = QueryDeadline.pendingCancellations();
+
+    QueryDeadline.start(Duration.ofSeconds(10));
+    transactionTemplate.executeWithoutResult(
+        status -> memberJpaRepository.search(new MemberSearchCondition()));
+    assertThat(QueryDeadline.pendingCancellations()).isEqualTo(before + 1);
+
+    QueryDeadline.clear();
+    assertThat(QueryDeadline.pendingCancellations()).isEqualTo(before);
+  }
+
+  @Test
+  void requestRemovesCancellation() throws Exception {
+    int before = QueryDeadline.pendingCancellations();
+
+    mockMvc.perform(get("/v1/members").header(RequestDeadlineInterceptor.TIMEOUT_HEADER, "10000"))
+        .andExpect(status().isOk());
+
+    assertThat(QueryDeadline.pendingCancellations()).isEqualTo(before);
+  }
+
+  /**
+   * 헤더가 있으면 RequestDeadlineInterceptor 다음에 마감 시각을 이미 지난 것으로 바꾼다.
+   */
+  @TestConfiguration
+  static class ExpireConfig implements WebMvcConfigurer {
+
+    static final String EXPIRE_HEADER = "X-Test-Expire";
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+      registry.addInterceptor(new HandlerInterceptor() {
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+          if (request.getHeader(EXPIRE_HEADER) != null) {
+            QueryDeadline.start(Duration.ZERO);
+          }
+          return true;
+        }
+      }).order(Ordered.LOWEST_PRECEDENCE);
+    }
+  }
+}
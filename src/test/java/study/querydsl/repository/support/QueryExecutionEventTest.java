@@ -0,0 +1,112 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+@SpringBootTest
+@Transactional
+class QueryExecutionEventTest {
+
+  private static final String EVENT = "study.querydsl.QueryExecution";
+
+  @Autowired
+  EntityManager entityManager;
+
+  @Autowired
+  MemberJpaRepository memberJpaRepository;
+
+  @Test
+  void recordsQueriesWhileRecording() throws Exception {
+    Team team = new Team("jfrTeam");
+    entityManager.persist(team);
+    entityManager.persist(new Member("jfrMember1", 10, team));
+    entityManager.persist(new Member("jfrMember2", 20, team));
+    entityManager.flush();
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("jfrTeam");
+    condition.setAgeGoe(15);
+
+    List<RecordedEvent> events = record(() -> {
+      memberJpaRepository.search(condition);
+      memberJpaRepository.searchByBuilder(condition);
+    });
+
+    assertThat(events).hasSize(2);
+    for (RecordedEvent event : events) {
+      assertThat(event.getString("kind")).isEqualTo("list");
+      assertThat(event.getString("predicateFields")).isEqualTo("member.age,team.name");
+      assertThat(event.getLong("rowCount")).isEqualTo(1);
+      assertThat(event.getString("jpql")).contains("team.name");
+      assertThat(event.getDuration("jdbc")).isPositive();
+    }
+    // 미리 만들어 둔 JPQL 은 직렬화하지 않는다.
+    assertThat(events.get(0).getDuration("serialization")).isZero();
+    assertThat(events.get(1).getDuration("serialization")).isPositive();
+  }
+
+  @Test
+  void recordsPlainJpqlAndBulkClauses() throws Exception {
+    Team team = new Team("jfrTeam");
+    entityManager.persist(team);
+    entityManager.persist(new Member("jfrMember1", 10, team));
+    entityManager.persist(new Member("jfrMember2", 20, team));
+    entityManager.flush();
+
+    List<RecordedEvent> events = record(() -> {
+      memberJpaRepository.findByUsername("jfrMember1");
+      memberJpaRepository.bulkAddAge(1, member.username.startsWith("jfrMember"));
+    });
+
+    assertThat(events).hasSize(2);
+    RecordedEvent find = events.get(0);
+    assertThat(find.getString("kind")).isEqualTo("list");
+    assertThat(find.getString("jpql")).isEqualTo("select m from Member m where m.username = :username");
+    assertThat(find.getString("predicateFields")).isEqualTo("member.username");
+    assertThat(find.getLong("rowCount")).isEqualTo(1);
+    assertThat(find.getDuration("jdbc")).isPositive();
+
+    RecordedEvent update = events.get(1);
+    assertThat(update.getString("kind")).isEqualTo("update");
+    assertThat(update.getString("jpql")).startsWith("update Member member");
+    assertThat(update.getString("predicateFields")).isEqualTo("member.username");
+    assertThat(update.getLong("rowCount")).isEqualTo(2);
+    assertThat(update.getDuration("jdbc")).isPositive();
+  }
+
+  private static List<RecordedEvent> record(Runnable queries) throws Exception {
+    try (Recording recording = new Recording()) {
+      recording.enable(EVENT).withThreshold(Duration.ZERO);
+      recording.start();
+      queries.run();
+      recording.stop();
+      Path file = Files.createTempFile("query-events", ".jfr");
+      try {
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file).stream()
+            .filter(event -> event.getEventType().getName().equals(EVENT))
+            .collect(Collectors.toList());
+      } finally {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+}
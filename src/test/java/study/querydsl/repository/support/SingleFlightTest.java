@@ -0,0 +1,83 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+class SingleFlightTest {
+
+  @Test
+  void concurrentCallsShareOneExecution() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    SingleFlight<String, Integer> singleFlight =
+        new SingleFlight<>("test", Tags.empty(), Duration.ofSeconds(5), registry);
+    AtomicInteger executions = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+        executions.incrementAndGet();
+        await(release);
+        return 42;
+      })));
+    }
+    while (registry.get("test.shared").counter().count() < 7) {
+      Thread.sleep(10);
+    }
+    release.countDown();
+
+    for (Future<Integer> result : results) {
+      assertThat(result.get()).isEqualTo(42);
+    }
+    executor.shutdown();
+
+    assertThat(executions.get()).isEqualTo(1);
+    assertThat(registry.get("test.waiters").summary().max()).isEqualTo(7);
+  }
+
+  @Test
+  void waiterTimesOut() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    SingleFlight<String, Integer> singleFlight =
+        new SingleFlight<>("test", Tags.empty(), Duration.ofMillis(50), registry);
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<Integer> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+      await(release);
+      return 1;
+    }));
+    while (registry.get("test.executions").counter().count() < 1) {
+      Thread.sleep(10);
+    }
+
+    assertThatThrownBy(() -> singleFlight.execute("key", () -> 2))
+        .isInstanceOf(QueryTimeoutException.class);
+    release.countDown();
+    assertThat(leader.get()).isEqualTo(1);
+    executor.shutdown();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}